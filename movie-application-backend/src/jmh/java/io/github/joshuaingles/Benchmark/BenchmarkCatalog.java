@@ -0,0 +1,84 @@
+package io.github.joshuaingles.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.github.joshuaingles.MovieApplicationBackend;
+import io.github.joshuaingles.Repository.GenreDictionary;
+
+/**
+ * Benchmark Catalog
+ *
+ * Starts the application without a web server and seeds a synthetic catalog
+ * straight into H2, shared by the benchmarks in this package.
+ */
+final class BenchmarkCatalog {
+
+    static final String[] GENRES = {
+        "Action", "Adventure", "Animation", "Biography", "Comedy", "Crime", "Documentary",
+        "Drama", "Family", "Fantasy", "History", "Horror", "Music", "Musical",
+        "Mystery", "Romance", "Sci-Fi", "Sport", "Thriller", "War"
+    };
+    static final int YEARS = 75;
+    static final int FIRST_YEAR = 1950;
+    // One movie in RARE_YEAR_EVERY carries a year outside the main range, a sparse filter
+    static final int RARE_YEAR_EVERY = 10_000;
+    static final String RARE_YEAR = "1949";
+    // allocationSize of movie_seq on Movie
+    private static final int ALLOCATION_SIZE = 50;
+
+    private BenchmarkCatalog() {
+    }
+
+    /**
+     * Start
+     *
+     * Runs the application with the filter cache off, so every call reaches the path under test.
+     * H2 would otherwise hand back the previous result for a repeated query on an unchanged table.
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> arguments = new ArrayList<>(List.of(
+            "--spring.main.banner-mode=off",
+            "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_ON_EXIT=FALSE;OPTIMIZE_REUSE_RESULTS=FALSE",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=warn",
+            "--movies.filter-cache.enabled=false"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(MovieApplicationBackend.class)
+            .web(WebApplicationType.NONE)
+            .run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Seed
+     *
+     * Generates the rows inside H2. Years and two genres per movie spread evenly across the catalog.
+     * The genres are interned through the application's GenreDictionary first, so the seeded
+     * genre ids mean the same to it.
+     */
+    static void seed(ConfigurableApplicationContext context, int catalogSize) {
+        GenreDictionary genreDictionary = context.getBean(GenreDictionary.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> genreDictionary.intern(List.of(GENRES)));
+        Integer[] genreIds = genreDictionary.ids(List.of(GENRES));
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into movie (id, title, release_year, genre_ids, version) "
+            + "select x, 'Movie ' || x, case when mod(x, ?) = 0 then ? else ? + mod(x, ?) end, "
+            + "array[cast(? as integer array)[mod(x, 20) + 1], cast(? as integer array)[mod(x + 7, 20) + 1]], 0 "
+            + "from system_range(1, ?)",
+            RARE_YEAR_EVERY, Integer.parseInt(RARE_YEAR), FIRST_YEAR, YEARS, genreIds, genreIds, catalogSize);
+        // Movies created afterwards must not be handed a seeded id. Hibernate's pooled
+        // optimizer treats the sequence value as the top of a block of ALLOCATION_SIZE.
+        jdbc.execute("alter sequence movie_seq restart with " + (catalogSize + 1 + ALLOCATION_SIZE));
+    }
+
+    static String year(int id) {
+        return (id % RARE_YEAR_EVERY == 0) ? RARE_YEAR : String.valueOf(FIRST_YEAR + id % YEARS);
+    }
+}
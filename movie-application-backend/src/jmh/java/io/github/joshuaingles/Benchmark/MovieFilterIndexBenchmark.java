@@ -0,0 +1,117 @@
+package io.github.joshuaingles.Benchmark;
+
+import static io.github.joshuaingles.Benchmark.BenchmarkCatalog.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.MovieRepository;
+import io.github.joshuaingles.Service.MovieService;
+
+/**
+ * Movie Filter Index Benchmark
+ *
+ * Filter latency against a seeded catalog, with the movie indexes in place
+ * (indexed=true) and dropped again (indexed=false) to show the pre-index plans.
+ * Each benchmark reads one default-size page including its genres, the same
+ * work GET /api/v1/movies does. Genre filters look for the genre's id in the
+ * genre_ids array of the rows they walk, so no index serves them either way.
+ *
+ * ./mvnw -Pbenchmark verify -Djmh.args="MovieFilterIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class MovieFilterIndexBenchmark {
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private MovieRepository movieRepository;
+    private MovieService movieService;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start();
+        movieRepository = context.getBean(MovieRepository.class);
+        movieService = context.getBean(MovieService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkCatalog.seed(context, catalogSize);
+        if (!indexed) {
+            jdbc.execute("alter table movie drop constraint uk_movie_title_release_year");
+            jdbc.execute("drop index idx_movie_title_id");
+            jdbc.execute("drop index idx_movie_release_year_id");
+        }
+        jdbc.execute("analyze");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Movie findByTitleAndReleaseYear() {
+        int id = ThreadLocalRandom.current().nextInt(1, catalogSize + 1);
+        return movieRepository.findByTitleAndReleaseYear("Movie " + id, year(id));
+    }
+
+    @Benchmark
+    public int pageByReleaseYear() {
+        return page(String.valueOf(FIRST_YEAR + ThreadLocalRandom.current().nextInt(YEARS)), null);
+    }
+
+    @Benchmark
+    public int pageByRareReleaseYear() {
+        return page(RARE_YEAR, null);
+    }
+
+    @Benchmark
+    public int pageByGenre() {
+        return page(null, GENRES[ThreadLocalRandom.current().nextInt(GENRES.length)]);
+    }
+
+    @Benchmark
+    public int pageByReleaseYearAndGenre() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return page(String.valueOf(FIRST_YEAR + random.nextInt(YEARS)), GENRES[random.nextInt(GENRES.length)]);
+    }
+
+    private int page(String releaseYear, String genre) {
+        return transactionTemplate.execute(status -> {
+            MoviePage page = movieService.getMovies(releaseYear, genre, MovieSort.ID, null, null);
+            List<Movie> movies = page.movies();
+            return movies.isEmpty() ? 0 : movies.get(0).getGenres().size() + movies.size();
+        });
+    }
+}
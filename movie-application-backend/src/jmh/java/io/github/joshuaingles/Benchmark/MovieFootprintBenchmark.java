@@ -0,0 +1,116 @@
+package io.github.joshuaingles.Benchmark;
+
+import static io.github.joshuaingles.Benchmark.BenchmarkCatalog.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Footprint Benchmark
+ *
+ * Heap taken by a page of Movies as the filter cache and the Movie cache hold
+ * them, read off the gc profiler: every byte a benchmark allocates stays
+ * reachable from the page it returns, so gc.alloc.rate.norm divided by pageSize
+ * is the bytes per cached Movie.
+ *
+ * compactPage   Movies as loaded now: a short year, no year text for a canonical
+ *               year, and the genre list GenreDictionary.names shares between
+ *               Movies with the same genres
+ * stringPage    the same Movies in the previous shape, each with its own year
+ *               String and genre list and Strings, as JDBC and the genres
+ *               collection used to hand them over
+ *
+ * ./mvnw -Pbenchmark verify -Djmh.args="MovieFootprintBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieFootprintBenchmark {
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private String[] titles;
+    private short[] years;
+    private List<String>[] genres;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        titles = new String[pageSize];
+        years = new short[pageSize];
+        genres = new List[pageSize];
+        // As the dictionary does, one immutable list per combination of genres
+        Map<List<String>, List<String>> shared = new HashMap<>();
+        for (int i = 0; i < pageSize; i++) {
+            int id = i + 1;
+            List<String> movieGenres = List.of(GENRES[id % GENRES.length], GENRES[(id + 7) % GENRES.length]);
+            Movie movie = Movie.builder().title("Movie " + id).releaseYear(year(id))
+                .genres(shared.computeIfAbsent(movieGenres, key -> key)).build();
+            titles[i] = movie.getTitle();
+            years[i] = movie.getReleaseYearNumber();
+            genres[i] = movie.getGenres();
+        }
+    }
+
+    // Titles are shared by both shapes, as a cached Movie holds the String it was loaded with either way
+    @Benchmark
+    public List<Movie> compactPage() {
+        List<Movie> page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(Movie.builder().id((long) i + 1_000).title(titles[i]).releaseYearNumber(years[i])
+                .genres(genres[i]).version(0).build());
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<StringMovie> stringPage() {
+        List<StringMovie> page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            int id = i + 1;
+            List<String> genres = new ArrayList<>();
+            genres.add(new String(GENRES[id % GENRES.length]));
+            genres.add(new String(GENRES[(id + 7) % GENRES.length]));
+            page.add(new StringMovie((long) i + 1_000, titles[i], Integer.toString(years[i]), 0, genres));
+        }
+        return page;
+    }
+
+    // Field for field the Movie before releaseYear and genres were compacted
+    public static final class StringMovie {
+        final Long id;
+        final String title;
+        final String releaseYear;
+        final long version;
+        final List<String> genres;
+
+        StringMovie(Long id, String title, String releaseYear, long version, List<String> genres) {
+            this.id = id;
+            this.title = title;
+            this.releaseYear = releaseYear;
+            this.version = version;
+            this.genres = genres;
+        }
+    }
+}
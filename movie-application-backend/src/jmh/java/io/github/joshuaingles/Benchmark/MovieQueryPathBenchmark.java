@@ -0,0 +1,107 @@
+package io.github.joshuaingles.Benchmark;
+
+import static io.github.joshuaingles.Benchmark.BenchmarkCatalog.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Service.MovieIndexLoader;
+import io.github.joshuaingles.Service.MovieService;
+
+/**
+ * Movie Query Path Benchmark
+ *
+ * getMovies answered by H2 through JPA (path=jpa) against the in-memory bitmap
+ * index (path=index), over the same seeded catalog.
+ *
+ * ./mvnw -Pbenchmark verify -Djmh.args="MovieQueryPathBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class MovieQueryPathBenchmark {
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"jpa", "index"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start("--movies.index.enabled=" + path.equals("index"));
+        movieService = context.getBean(MovieService.class);
+        BenchmarkCatalog.seed(context, catalogSize);
+        // The startup build saw an empty catalog
+        context.getBean(MovieIndexLoader.class).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int pageByReleaseYear() {
+        return page(randomYear(), null, MovieSort.ID);
+    }
+
+    @Benchmark
+    public int pageByGenre() {
+        return page(null, randomGenre(), MovieSort.ID);
+    }
+
+    @Benchmark
+    public int pageByReleaseYearAndGenre() {
+        return page(randomYear(), randomGenre(), MovieSort.ID);
+    }
+
+    @Benchmark
+    public int pageByReleaseYearSortedByTitle() {
+        return page(randomYear(), null, MovieSort.TITLE);
+    }
+
+    @Benchmark
+    public int listByReleaseYearAndGenre() {
+        return movieService.getMovies(randomYear(), randomGenre()).size();
+    }
+
+    private int page(String releaseYear, String genre, MovieSort sort) {
+        MoviePage page = movieService.getMovies(releaseYear, genre, sort, null, null);
+        List<Movie> movies = page.movies();
+        return movies.isEmpty() ? 0 : movies.get(0).getGenres().size() + movies.size();
+    }
+
+    private static String randomYear() {
+        return String.valueOf(FIRST_YEAR + ThreadLocalRandom.current().nextInt(YEARS));
+    }
+
+    private static String randomGenre() {
+        return GENRES[ThreadLocalRandom.current().nextInt(GENRES.length)];
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.joshuaingles.Benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Service.MovieIndexLoader;
+import io.github.joshuaingles.Service.MovieService;
+
+/**
+ * Movie Search Benchmark
+ *
+ * searchMovies answered by the trigram index (path=index) against the H2 substring
+ * match (path=jpa), over a catalog of three-word titles. Sampled, so the results
+ * carry p99 and p99.9 alongside the mean.
+ *
+ * ./mvnw -Pbenchmark verify -Djmh.args="MovieSearchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class MovieSearchBenchmark {
+
+    // Every id below 1,000,000 gets a distinct combination of three of these
+    private static final String[] WORDS = {
+        "The", "Last", "Dark", "Night", "Star", "Love", "City", "Dead", "Man", "Woman",
+        "King", "Queen", "House", "Road", "River", "Sky", "Fire", "Ice", "Storm", "Shadow",
+        "Blood", "Heart", "Ghost", "Dream", "War", "Peace", "Secret", "Lost", "Black", "White",
+        "Red", "Blue", "Golden", "Silver", "Iron", "Stone", "Wild", "Silent", "Broken", "Hidden",
+        "Empire", "Kingdom", "Island", "Ocean", "Mountain", "Desert", "Forest", "Garden", "Winter", "Summer",
+        "Spring", "Autumn", "Midnight", "Morning", "Return", "Rise", "Fall", "Legend", "Story", "Journey",
+        "Escape", "Hunter", "Soldier", "Stranger", "Angel", "Devil", "Wolf", "Dragon", "Tiger", "Eagle",
+        "Machine", "Planet", "Galaxy", "Time", "Memory", "Mirror", "Game", "Hotel", "Train", "Bridge",
+        "Tower", "Castle", "Street", "Harbor", "Valley", "Canyon", "Thunder", "Lightning", "Rain", "Snow",
+        "Echo", "Whisper", "Promise", "Revenge", "Honor", "Glory", "Fortune", "Destiny", "Chaos", "Paradise"
+    };
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"index", "jpa"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start("--movies.search.enabled=" + path.equals("index"));
+        movieService = context.getBean(MovieService.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        BenchmarkCatalog.seed(context, catalogSize);
+        jdbc.update("update movie set title = cast(? as varchar array)[mod(id, 100) + 1] "
+            + "|| ' ' || cast(? as varchar array)[mod(id / 100, 100) + 1] "
+            + "|| ' ' || cast(? as varchar array)[mod(id / 10000, 100) + 1]",
+            WORDS, WORDS, WORDS);
+        // The startup build saw an empty catalog
+        context.getBean(MovieIndexLoader.class).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int searchWord() {
+        return search(randomWord());
+    }
+
+    @Benchmark
+    public int searchPrefix() {
+        return search(randomWord().substring(0, 2));
+    }
+
+    @Benchmark
+    public int searchSubstring() {
+        String word = randomWord();
+        while (word.length() < 4) {
+            word = randomWord();
+        }
+        return search(word.substring(1, 4));
+    }
+
+    @Benchmark
+    public int searchPhrase() {
+        return search(randomWord() + " " + randomWord());
+    }
+
+    private int search(String query) {
+        List<Movie> movies = movieService.searchMovies(query, 10);
+        return movies.size();
+    }
+
+    private static String randomWord() {
+        return WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+    }
+}
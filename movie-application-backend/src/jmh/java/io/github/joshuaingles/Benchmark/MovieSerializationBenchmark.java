@@ -0,0 +1,76 @@
+package io.github.joshuaingles.Benchmark;
+
+import static io.github.joshuaingles.Benchmark.BenchmarkCatalog.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Serialization Benchmark
+ *
+ * Jackson writing and reading Movie lists the size of a search result, a default
+ * page and a maximum page, with the ObjectMapper defaults the application uses.
+ *
+ * ./mvnw -Pbenchmark verify -Djmh.args="MovieSerializationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int listSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Movie> movies;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Movie> generated = new ArrayList<>(listSize);
+        for (int id = 1; id <= listSize; id++) {
+            generated.add(Movie.builder().id((long) id).title("Movie " + id).releaseYear(year(id))
+                .genres(List.of(GENRES[id % GENRES.length], GENRES[(id + 7) % GENRES.length])).build());
+        }
+        movies = generated;
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Movie.class));
+        reader = objectMapper.readerForListOf(Movie.class);
+        json = writer.writeValueAsBytes(movies);
+    }
+
+    @Benchmark
+    public byte[] writeMovies() throws IOException {
+        return writer.writeValueAsBytes(movies);
+    }
+
+    @Benchmark
+    public List<Movie> readMovies() throws IOException {
+        return reader.readValue(json);
+    }
+}
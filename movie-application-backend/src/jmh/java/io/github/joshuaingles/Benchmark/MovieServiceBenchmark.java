@@ -0,0 +1,116 @@
+package io.github.joshuaingles.Benchmark;
+
+import static io.github.joshuaingles.Benchmark.BenchmarkCatalog.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Service.MovieService;
+
+/**
+ * Movie Service Benchmark
+ *
+ * The MovieService calls behind the REST endpoints at several catalog sizes,
+ * with the Movie cache on and the getMovies filter cache off. Creates add to the
+ * catalog as they run; each benchmark starts from a freshly seeded one.
+ *
+ * ./mvnw -Pbenchmark verify -Djmh.args="MovieServiceBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class MovieServiceBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+    // Next title suffix, so every created Movie is new
+    private long created;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start();
+        movieService = context.getBean(MovieService.class);
+        BenchmarkCatalog.seed(context, catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Movie createMovie() {
+        return movieService.createMovie(newMovie());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int createMovies() {
+        List<Movie> movies = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            movies.add(newMovie());
+        }
+        return movieService.createMovies(movies).size();
+    }
+
+    @Benchmark
+    public int getMovie() {
+        return movieService.getMovie((long) ThreadLocalRandom.current().nextInt(1, catalogSize + 1))
+            .map(movie -> movie.getGenres().size()).orElse(0);
+    }
+
+    @Benchmark
+    public int getMoviesPage() {
+        return movieService.getMovies(null, null, MovieSort.ID, null, null).movies().size();
+    }
+
+    @Benchmark
+    public int getMoviesPageByReleaseYearAndGenre() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return movieService.getMovies(String.valueOf(FIRST_YEAR + random.nextInt(YEARS)),
+            GENRES[random.nextInt(GENRES.length)], MovieSort.TITLE, null, null).movies().size();
+    }
+
+    @Benchmark
+    public int getMoviesByReleaseYearAndGenre() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return movieService.getMovies(String.valueOf(FIRST_YEAR + random.nextInt(YEARS)),
+            GENRES[random.nextInt(GENRES.length)]).size();
+    }
+
+    private Movie newMovie() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Movie.builder()
+            .title("Created " + created++)
+            .releaseYear(String.valueOf(FIRST_YEAR + random.nextInt(YEARS)))
+            .genres(List.of(GENRES[random.nextInt(GENRES.length)]))
+            .build();
+    }
+}
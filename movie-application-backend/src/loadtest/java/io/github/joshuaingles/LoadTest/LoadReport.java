@@ -0,0 +1,136 @@
+package io.github.joshuaingles.LoadTest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Load Report
+ *
+ * Latency and outcome of every request in the recorded part of a run, per
+ * operation. Latencies are kept in HdrHistograms at microsecond resolution and
+ * written out both as a summary and as one .hgrm percentile distribution per
+ * operation, the format HdrHistogram's plotter reads.
+ */
+class LoadReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<MovieWorkload.Operation, Recorder> recorders = new EnumMap<>(MovieWorkload.Operation.class);
+    private final Map<MovieWorkload.Operation, LongAdder> errors = new EnumMap<>(MovieWorkload.Operation.class);
+    private final Map<MovieWorkload.Operation, Histogram> histograms = new EnumMap<>(MovieWorkload.Operation.class);
+    private long startNanos;
+    private long stopNanos;
+
+    LoadReport() {
+        for (MovieWorkload.Operation operation : MovieWorkload.Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Record
+     *
+     * Safe to call from every client thread at once.
+     *
+     * @param operation Operation
+     * @param status int HTTP status, or -1 for a request that failed without one
+     * @param latencyNanos long
+     */
+    void record(MovieWorkload.Operation operation, int status, long latencyNanos) {
+        recorders.get(operation).recordValue(Math.max(1, latencyNanos / 1000));
+        // 404s and write conflicts are answers the API is expected to give under this workload
+        if (status < 0 || status >= 500) {
+            errors.get(operation).increment();
+        }
+    }
+
+    /**
+     * Start
+     *
+     * Drops what was recorded during warmup.
+     */
+    void start() {
+        for (MovieWorkload.Operation operation : MovieWorkload.Operation.values()) {
+            recorders.get(operation).getIntervalHistogram();
+            errors.get(operation).reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    void stop() {
+        stopNanos = System.nanoTime();
+        for (MovieWorkload.Operation operation : MovieWorkload.Operation.values()) {
+            histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+        }
+    }
+
+    String summary() {
+        double seconds = (stopNanos - startNanos) / 1e9;
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "%-8s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+            "op", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (MovieWorkload.Operation operation : MovieWorkload.Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalErrors += errors.get(operation).sum();
+            row(summary, operation.name().toLowerCase(Locale.ROOT), histogram, errors.get(operation).sum(), seconds);
+        }
+        row(summary, "total", total, totalErrors, seconds);
+        return summary.toString();
+    }
+
+    /**
+     * Write
+     *
+     * Writes summary.txt, with the options and application arguments of the run,
+     * and an .hgrm file per operation into the directory.
+     *
+     * @param directory Path
+     * @param options Map<String, String>
+     * @param applicationArgs List<String>
+     */
+    void write(Path directory, Map<String, String> options, List<String> applicationArgs) throws IOException {
+        Files.createDirectories(directory);
+        StringBuilder report = new StringBuilder();
+        options.entrySet().stream().sorted(Map.Entry.comparingByKey())
+            .forEach(option -> report.append(option.getKey()).append('=').append(option.getValue()).append('\n'));
+        report.append("application=").append(String.join(" ", applicationArgs)).append('\n');
+        report.append("java=").append(System.getProperty("java.version"))
+            .append(" processors=").append(Runtime.getRuntime().availableProcessors()).append("\n\n");
+        report.append(summary());
+        Files.writeString(directory.resolve("summary.txt"), report);
+        for (Map.Entry<MovieWorkload.Operation, Histogram> entry : histograms.entrySet()) {
+            if (entry.getValue().getTotalCount() == 0) {
+                continue;
+            }
+            Path file = directory.resolve(entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private static void row(StringBuilder summary, String name, Histogram histogram, long errors, double seconds) {
+        summary.append(String.format(Locale.ROOT, "%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+            name, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+            histogram.getValueAtPercentile(50) / MICROS_PER_MILLI, histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+            histogram.getValueAtPercentile(99) / MICROS_PER_MILLI, histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+            histogram.getMaxValue() / MICROS_PER_MILLI));
+    }
+}
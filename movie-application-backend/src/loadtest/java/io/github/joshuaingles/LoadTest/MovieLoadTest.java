@@ -0,0 +1,161 @@
+package io.github.joshuaingles.LoadTest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.github.joshuaingles.MovieApplicationBackend;
+
+/**
+ * Movie Load Test
+ *
+ * Starts the application on a random port, imports a synthetic catalog through
+ * the API and then drives a mixed workload at it over HTTP, recording the
+ * latency of every request. Options before "--" configure the run; everything
+ * after it is passed to the application, so configurations can be compared:
+ *
+ * ./mvnw -Ploadtest verify -Dloadtest.args="--label=no-cache -- --movies.filter-cache.enabled=false"
+ *
+ * --catalog=100000     Movies imported before the run
+ * --threads=16         Client threads
+ * --rate=0             Requests per second across all threads; 0 sends each request as soon
+ *                      as the previous one returns
+ * --warmup=15          Seconds run before recording starts
+ * --duration=60        Seconds recorded
+ * --mix=get:60,list:24,create:5,patch:5,delete:5,export:1
+ *                      Relative weight of each operation
+ * --bulk-size=10       Movies per create
+ * --label=default      Report directory under target/loadtest
+ */
+public class MovieLoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+        "catalog", "100000",
+        "threads", "16",
+        "rate", "0",
+        "warmup", "15",
+        "duration", "60",
+        "mix", "get:60,list:24,create:5,patch:5,delete:5,export:1",
+        "bulk-size", "10",
+        "label", "default");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.main.banner-mode=off",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=warn"));
+        boolean forwarding = false;
+        for (String arg : args) {
+            if (forwarding) {
+                applicationArgs.add(arg);
+            } else if (arg.equals("--")) {
+                forwarding = true;
+            } else if (arg.startsWith("--") && arg.contains("=") && DEFAULTS.containsKey(arg.substring(2, arg.indexOf('=')))) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown load test option " + arg);
+            }
+        }
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MovieApplicationBackend.class)
+                .run(applicationArgs.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            MovieWorkload workload = new MovieWorkload("http://localhost:" + port + "/api/v1/movies",
+                Integer.parseInt(options.get("bulk-size")));
+            int catalog = Integer.parseInt(options.get("catalog"));
+            System.out.printf("Importing %d movies%n", catalog);
+            workload.seed(catalog);
+
+            LoadReport report = run(workload, parseMix(options.get("mix")), Integer.parseInt(options.get("threads")),
+                Double.parseDouble(options.get("rate")), Integer.parseInt(options.get("warmup")),
+                Integer.parseInt(options.get("duration")));
+            Path directory = Path.of("target", "loadtest", options.get("label"));
+            report.write(directory, options, applicationArgs);
+            System.out.print(report.summary());
+            System.out.printf("Report written to %s%n", directory);
+        }
+    }
+
+    private static LoadReport run(MovieWorkload workload, Map<MovieWorkload.Operation, Integer> mix, int threads,
+            double rate, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        LoadReport report = new LoadReport();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds + durationSeconds);
+        // Each thread's share of the rate; 0 runs closed loop
+        long interval = (rate > 0) ? (long) (threads * 1_000_000_000L / rate) : 0;
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> drive(workload, mix, report, interval, end), "loadtest-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        System.out.printf("Warming up for %d s%n", warmupSeconds);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+        report.start();
+        System.out.printf("Recording for %d s%n", durationSeconds);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report.stop();
+        return report;
+    }
+
+    private static void drive(MovieWorkload workload, Map<MovieWorkload.Operation, Integer> mix, LoadReport report,
+            long interval, long end) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        // Offset the threads so a fixed rate is not sent in bursts
+        long intended = System.nanoTime() + ((interval > 0) ? ThreadLocalRandom.current().nextLong(interval) : 0);
+        while (true) {
+            if (interval > 0) {
+                intended += interval;
+                for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= end) {
+                return;
+            }
+            MovieWorkload.Operation operation = pick(mix, total);
+            int status = workload.execute(operation);
+            // Timed from when the request was due, so a stalled server is not hidden by requests that waited to be sent
+            report.record(operation, status, System.nanoTime() - intended);
+        }
+    }
+
+    private static MovieWorkload.Operation pick(Map<MovieWorkload.Operation, Integer> mix, int total) {
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<MovieWorkload.Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private static Map<MovieWorkload.Operation, Integer> parseMix(String value) {
+        Map<MovieWorkload.Operation, Integer> mix = new EnumMap<>(MovieWorkload.Operation.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            mix.put(MovieWorkload.Operation.valueOf(weight[0].strip().toUpperCase()), Integer.parseInt(weight[1].strip()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("mix needs at least one positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.joshuaingles.LoadTest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Workload
+ *
+ * The requests a load test sends, one MovieController endpoint each. Reads and
+ * patches go to the imported catalog; deletes only remove Movies the run itself
+ * created, so the catalog being read keeps its size.
+ */
+class MovieWorkload {
+
+    enum Operation {
+        GET,
+        LIST,
+        CREATE,
+        PATCH,
+        DELETE,
+        EXPORT
+    }
+
+    static final String[] GENRES = {
+        "Action", "Adventure", "Animation", "Biography", "Comedy", "Crime", "Documentary",
+        "Drama", "Family", "Fantasy", "History", "Horror", "Music", "Musical",
+        "Mystery", "Romance", "Sci-Fi", "Sport", "Thriller", "War"
+    };
+    static final int YEARS = 75;
+    static final int FIRST_YEAR = 1950;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    // A full export competes for the CPU with every other request, so it gets far longer to finish
+    private static final Duration EXPORT_TIMEOUT = Duration.ofMinutes(5);
+
+    private final String baseUrl;
+    private final int bulkSize;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(TIMEOUT).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Suffix for created and patched titles, which must stay unique per release year
+    private final AtomicLong titles = new AtomicLong();
+    private final Queue<Long> created = new ConcurrentLinkedQueue<>();
+    private long[] catalogIds;
+
+    MovieWorkload(String baseUrl, int bulkSize) {
+        this.baseUrl = baseUrl;
+        this.bulkSize = bulkSize;
+    }
+
+    /**
+     * Seed
+     *
+     * Imports the catalog as newline-delimited JSON, then reads its ids back from the export.
+     *
+     * @param catalogSize int
+     */
+    void seed(int catalogSize) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(catalogSize * 80);
+        for (int i = 1; i <= catalogSize; i++) {
+            body.append(objectMapper.writeValueAsString(Movie.builder().title("Movie " + i)
+                .releaseYear(String.valueOf(FIRST_YEAR + i % YEARS))
+                .genres(List.of(GENRES[i % GENRES.length], GENRES[(i + 7) % GENRES.length])).build()))
+                .append('\n');
+        }
+        HttpResponse<String> imported = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/import"))
+            .header("Content-Type", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8)).build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Import failed with " + imported.statusCode() + ": " + imported.body());
+        }
+
+        List<Long> ids = new ArrayList<>(catalogSize);
+        HttpResponse<Stream<String>> exported = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/export")).GET().build(), HttpResponse.BodyHandlers.ofLines());
+        exported.body().forEach(line -> ids.add(readTree(line).get("id").asLong()));
+        catalogIds = ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Execute
+     *
+     * Sends one request and reads the whole response.
+     *
+     * @param operation Operation
+     * @return int HTTP status, or -1 when the request failed without one
+     */
+    int execute(Operation operation) {
+        try {
+            switch (operation) {
+                case GET:
+                    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomCatalogId())).GET());
+                case LIST:
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    return send(HttpRequest.newBuilder(URI.create(baseUrl + "?releaseYear=" + (FIRST_YEAR + random.nextInt(YEARS))
+                        + "&genre=" + GENRES[random.nextInt(GENRES.length)])).GET());
+                case PATCH:
+                    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomCatalogId()))
+                        .header("Content-Type", "application/json")
+                        .method("PATCH", json(Map.of("title", "Patched " + titles.incrementAndGet()))));
+                case EXPORT:
+                    // The whole catalog streamed, holding a connection for as long as it takes
+                    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/export")).GET(), EXPORT_TIMEOUT);
+                case DELETE:
+                    Long id = created.poll();
+                    if (id != null) {
+                        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).DELETE());
+                    }
+                    // Nothing this run created is left to delete yet, so make some
+                    return create();
+                case CREATE:
+                default:
+                    return create();
+            }
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private int create() throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Movie> movies = new ArrayList<>(bulkSize);
+        for (int i = 0; i < bulkSize; i++) {
+            movies.add(Movie.builder().title("Created " + titles.incrementAndGet())
+                .releaseYear(String.valueOf(FIRST_YEAR + random.nextInt(YEARS)))
+                .genres(List.of(GENRES[random.nextInt(GENRES.length)])).build());
+        }
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/bulk"))
+            .header("Content-Type", "application/json").timeout(TIMEOUT).POST(json(movies)).build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 201) {
+            for (JsonNode movie : objectMapper.readTree(response.body())) {
+                created.add(movie.get("id").asLong());
+            }
+        }
+        return response.statusCode();
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return send(request, TIMEOUT);
+    }
+
+    private int send(HttpRequest.Builder request, Duration timeout) throws IOException, InterruptedException {
+        return client.send(request.timeout(timeout).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long randomCatalogId() {
+        return catalogIds[ThreadLocalRandom.current().nextInt(catalogIds.length)];
+    }
+}
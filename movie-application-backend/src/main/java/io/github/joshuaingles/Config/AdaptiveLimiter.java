@@ -0,0 +1,124 @@
+package io.github.joshuaingles.Config;
+
+/**
+ * Adaptive Limiter
+ *
+ * A concurrency limit that follows the latency it observes, in the style of a
+ * gradient limiter. Two moving averages of request latency are kept: a short
+ * one over the last few requests and a long one that serves as the no-load
+ * baseline. While the short average stays within tolerance times the baseline
+ * the limit grows by a fraction of its queue allowance per sample; once requests
+ * start queueing and the short average climbs, the limit is scaled down by
+ * baseline / short, but never by more than half at once, and the allowance is
+ * added back.
+ *
+ * The allowance is the square root of the limit, capped at a quarter of it. The
+ * cap is what lets a small limit shrink at all: below 16 the square root is more
+ * than the half a congested sample takes away, which would pin a limit of 4 or
+ * less in place however far latency climbs.
+ *
+ * The limit only grows while it is actually being used, so an idle period cannot
+ * inflate it. The baseline moves slowly enough that a burst of queueing does not
+ * become the new normal, yet follows a lasting change such as a larger catalog.
+ * All state sits behind one monitor; the work under it is a handful of
+ * arithmetic operations.
+ */
+public class AdaptiveLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private double limit;
+    private int inFlight;
+    private double shortLatency;
+    private double longLatency;
+
+    /**
+     * @param initialLimit int limit before any latency is observed
+     * @param minLimit int the limit never drops below
+     * @param maxLimit int the limit never grows above
+     * @param tolerance double how far above the baseline the short average may rise before the limit shrinks
+     * @param smoothing double weight of each new limit against the previous one, between 0 and 1
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1.0 || smoothing <= 0.0 || smoothing > 1.0) {
+            throw new IllegalArgumentException("Expected tolerance >= 1 and 0 < smoothing <= 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Try Acquire
+     *
+     * Takes a slot if fewer requests than the limit are in flight.
+     *
+     * @return boolean false when the request should be rejected
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Release
+     *
+     * Frees a slot taken by tryAcquire and feeds the request's latency into the limit.
+     *
+     * @param latencyNanos long time from tryAcquire until the response was complete
+     */
+    public synchronized void release(long latencyNanos) {
+        int observedInFlight = inFlight;
+        inFlight--;
+        if (latencyNanos <= 0) {
+            return;
+        }
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return;
+        }
+        shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+        longLatency += (latencyNanos - longLatency) / LONG_WINDOW;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / shortLatency));
+        double next = limit * gradient + Math.min(Math.sqrt(limit), limit * 0.25);
+        // Growth is only earned under load: an app-limited sample says nothing about capacity
+        if (next > limit && observedInFlight * 2 < (int) limit) {
+            return;
+        }
+        next = limit * (1 - smoothing) + next * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * Release Without Sample
+     *
+     * Frees a slot without feeding its latency into the limit, for requests whose
+     * duration says nothing about load, such as a streamed response.
+     */
+    public synchronized void releaseWithoutSample() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
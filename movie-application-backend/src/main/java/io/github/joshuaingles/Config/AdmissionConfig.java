@@ -0,0 +1,29 @@
+package io.github.joshuaingles.Config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admission Config
+ *
+ * Puts AdmissionControlFilter in front of the Movie API. It runs right after
+ * actuator's http.server.requests observation, so rejections are still timed
+ * there, but before any other filter or the request body is read.
+ */
+@Configuration
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(MovieProperties movieProperties,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<AdmissionControlFilter>(
+            new AdmissionControlFilter(movieProperties.getAdmission(), meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,159 @@
+package io.github.joshuaingles.Config;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission Control Filter
+ *
+ * Caps the Movie API requests in flight with an AdaptiveLimiter per budget, so
+ * that once the pod is at its CPU limit excess requests are turned away at once
+ * with 503 and Retry-After instead of queueing behind each other:
+ *
+ * read    GET /api/v1/movies/{id} and batch-get
+ * write   single Movie creates, PATCH and DELETE /api/v1/movies/{id}
+ * search  title search and facets
+ * list    GET /api/v1/movies
+ * export  GET /api/v1/movies/export
+ * bulk    the /bulk endpoints, the import and the facet reconcile
+ *
+ * Keeping the budgets apart means a burst of list scans, writes or searches
+ * shrinks only its own limit, and cheap reads keep their latency. Writes wait
+ * on row locks and on each other's commits rather than on the CPU, so their
+ * latency would otherwise shrink the limit of the reads sharing it. An export holds a
+ * pooled connection for as long as it streams, so the export budget also
+ * bounds how much of the connection pool exports can take. GET /changes is
+ * not limited, as a long-poll waits without using the server.
+ *
+ * Streamed responses hold their slot until they complete but do not feed the
+ * limit, as their duration follows the client rather than the load.
+ *
+ * Published per budget, tagged budget=read, write, search, list, export or bulk:
+ *
+ * movie.admission.limit      current concurrency limit
+ * movie.admission.in.flight  requests holding a slot
+ * movie.admission.rejected   requests answered 503
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String MOVIES_PATH = "/api/v1/movies";
+
+    public enum Budget {
+        READ, WRITE, SEARCH, LIST, EXPORT, BULK;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final boolean enabled;
+    private final String retryAfter;
+    private final Map<Budget, AdaptiveLimiter> limiters = new EnumMap<Budget, AdaptiveLimiter>(Budget.class);
+    private final Map<Budget, Counter> rejected = new EnumMap<Budget, Counter>(Budget.class);
+
+    public AdmissionControlFilter(MovieProperties.Admission config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.retryAfter = String.valueOf(Math.max(1, config.getRetryAfter().toSeconds()));
+        for (Budget budget : Budget.values()) {
+            MovieProperties.Admission.Budget limits = config.budget(budget);
+            AdaptiveLimiter limiter = new AdaptiveLimiter(limits.getInitialLimit(), limits.getMinLimit(),
+                limits.getMaxLimit(), config.getTolerance(), config.getSmoothing());
+            limiters.put(budget, limiter);
+            Gauge.builder("movie.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                .description("Concurrency limit").tag("budget", budget.tag()).register(meterRegistry);
+            Gauge.builder("movie.admission.in.flight", limiter, AdaptiveLimiter::getInFlight)
+                .description("Requests holding a slot").tag("budget", budget.tag()).register(meterRegistry);
+            rejected.put(budget, Counter.builder("movie.admission.rejected")
+                .description("Requests rejected with 503").tag("budget", budget.tag()).register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Budget budget = enabled ? budget(request) : null;
+        if (budget == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AdaptiveLimiter limiter = limiters.get(budget);
+        if (!limiter.tryAcquire()) {
+            rejected.get(budget).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limiter.releaseWithoutSample();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                limiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    // Classified by path alone, as the handler is not resolved yet; null means not limited
+    private static Budget budget(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(MOVIES_PATH)) {
+            return null;
+        }
+        String rest = path.substring(MOVIES_PATH.length());
+        if (rest.equals("/changes")) {
+            return null;
+        }
+        if (rest.equals("/bulk") || rest.equals("/import") || rest.equals("/facets/reconcile")) {
+            return Budget.BULK;
+        }
+        if (rest.equals("/export")) {
+            return Budget.EXPORT;
+        }
+        if (rest.equals("/search") || rest.equals("/facets")) {
+            return Budget.SEARCH;
+        }
+        boolean get = HttpMethod.GET.matches(request.getMethod());
+        if (rest.isEmpty() || rest.equals("/")) {
+            return get ? Budget.LIST : Budget.WRITE;
+        }
+        // GET /{id} and POST /batch-get read; PATCH and DELETE /{id} write
+        return (get || rest.equals("/batch-get")) ? Budget.READ : Budget.WRITE;
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.joshuaingles.Config;
+
+import java.time.Duration;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Cache Config
+ *
+ * Caffeine backed caches for the Movie API. Caffeine evicts by W-TinyLFU once
+ * maximumSize is reached and records hit, miss and eviction stats, which actuator
+ * publishes under the cache.* metrics.
+ *
+ * Evictions made inside a transaction are deferred until it commits, so a reader
+ * cannot repopulate an entry from rows that are about to change.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String MOVIE_CACHE = "movies";
+
+    @Bean
+    public CacheManager cacheManager(MovieProperties movieProperties) {
+        MovieProperties.Cache cache = movieProperties.getCache();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(MOVIE_CACHE, Caffeine.newBuilder()
+            .maximumSize(cache.getMaximumSize())
+            .expireAfter(new HitOrMissExpiry(cache.getTtl(), cache.getNegativeTtl()))
+            .recordStats()
+            .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    // Spring stores a cached miss as NullValue, which gets its own, shorter, time to live
+    private static class HitOrMissExpiry implements Expiry<Object, Object> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        HitOrMissExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return (value == NullValue.INSTANCE) ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package io.github.joshuaingles.Config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Movie Properties
+ *
+ * Tunables for the Movie API, bound from the "movies.*" keys in application.properties.
+ */
+@ConfigurationProperties(prefix = "movies")
+@Getter
+@Setter
+public class MovieProperties {
+
+    private Bulk bulk = new Bulk();
+    private Page page = new Page();
+    private Export export = new Export();
+    private Cache cache = new Cache();
+    private FilterCache filterCache = new FilterCache();
+    private Index index = new Index();
+    private Search search = new Search();
+    private BatchGet batchGet = new BatchGet();
+    private Snapshot snapshot = new Snapshot();
+    private Changes changes = new Changes();
+    private Coalesce coalesce = new Coalesce();
+    private Admission admission = new Admission();
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        /**
+         * Number of movies deduplicated and inserted per round trip.
+         * Should match spring.jpa.properties.hibernate.jdbc.batch_size.
+         */
+        private int chunkSize = 50;
+        /**
+         * Number of parsed movies committed per transaction by the streaming import.
+         */
+        private int importChunkSize = 1000;
+        /**
+         * Ids per IN list and per JDBC batch for bulk patches and deletes.
+         */
+        private int writeChunkSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Page {
+        /**
+         * Page size used when the client does not pass a limit.
+         */
+        private int defaultSize = 100;
+        /**
+         * Upper bound on the limit a client may request.
+         */
+        private int maxSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+        /**
+         * Rows streamed between persistence context clears.
+         */
+        private int clearInterval = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * Upper bound on cached movies, found and not found combined.
+         */
+        private long maximumSize = 10_000;
+        /**
+         * How long a found movie stays cached after it was loaded.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+        /**
+         * How long a miss stays cached. Kept short so ids from other writers show up quickly.
+         */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class FilterCache {
+        /**
+         * Whether getMovies results are cached at all.
+         */
+        private boolean enabled = true;
+        /**
+         * Approximate heap the cached getMovies results may occupy.
+         */
+        private DataSize memoryBudget = DataSize.ofMegabytes(32);
+        /**
+         * Upper bound on how long a result is kept, even if nothing invalidates it.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+        /**
+         * Whether getMovies is answered from the in-memory bitmap index instead of H2.
+         * The index is built at startup and holds the whole catalog on the heap.
+         */
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Search {
+        /**
+         * Whether title search uses the in-memory trigram index. When off, H2 runs a substring match instead.
+         */
+        private boolean enabled = true;
+        /**
+         * Number of results returned when the client does not pass a limit.
+         */
+        private int defaultLimit = 10;
+        /**
+         * Upper bound on the limit a client may request.
+         */
+        private int maxLimit = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class BatchGet {
+        /**
+         * Upper bound on the ids a client may request at once.
+         */
+        private int maxIds = 1000;
+        /**
+         * Ids resolved per IN query. Bounds the statement size for large batches.
+         */
+        private int chunkSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+        /**
+         * Whether the catalog is restored from the snapshot file at startup and written back to it.
+         */
+        private boolean enabled = false;
+        /**
+         * Snapshot file. Written to a sibling temporary file first and then moved into place.
+         */
+        private String path = "data/movies.snapshot";
+        /**
+         * Time between scheduled snapshots. Zero writes one only at shutdown.
+         */
+        private Duration interval = Duration.ZERO;
+    }
+
+    @Getter
+    @Setter
+    public static class Changes {
+        /**
+         * Changes kept in memory. Consumers further behind than this must re-read the catalog.
+         */
+        private int capacity = 100_000;
+        /**
+         * Changes returned when the client does not pass a limit.
+         */
+        private int defaultLimit = 1000;
+        /**
+         * Upper bound on the limit a client may request.
+         */
+        private int maxLimit = 10_000;
+        /**
+         * Upper bound on how long a long-poll waits for a change.
+         */
+        private Duration maxWait = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Coalesce {
+        /**
+         * Whether concurrent identical getMovie and getMovies reads share one repository load.
+         */
+        private boolean enabled = true;
+        /**
+         * How long a read waits for another's load before running its own. Matches the pool's connection-timeout.
+         */
+        private Duration maxWait = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+        /**
+         * Whether API requests beyond the adaptive concurrency limits are rejected with 503.
+         */
+        private boolean enabled = true;
+        /**
+         * Retry-After sent with a rejection, rounded to whole seconds.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+        /**
+         * How far above its baseline recent latency may rise before a limit shrinks.
+         */
+        private double tolerance = 2.0;
+        /**
+         * Weight of each newly computed limit against the previous one.
+         */
+        private double smoothing = 0.2;
+        /**
+         * GET /api/v1/movies/{id} and batch-get.
+         */
+        private Budget read = new Budget(20, 4, 200);
+        /**
+         * Single Movie creates, PATCH and DELETE /api/v1/movies/{id}.
+         */
+        private Budget write = new Budget(8, 2, 50);
+        /**
+         * Title search and facets.
+         */
+        private Budget search = new Budget(8, 2, 50);
+        /**
+         * GET /api/v1/movies.
+         */
+        private Budget list = new Budget(8, 2, 50);
+        /**
+         * GET /api/v1/movies/export. Each export holds a pooled connection until it has streamed, and never
+         * feeds the limit, so this is a fixed cap that spring.datasource.hikari.maximum-pool-size must cover.
+         */
+        private Budget export = new Budget(2, 1, 2);
+        /**
+         * The /bulk endpoints, the import and the facet reconcile.
+         */
+        private Budget bulk = new Budget(2, 1, 8);
+
+        public Budget budget(AdmissionControlFilter.Budget budget) {
+            return switch (budget) {
+                case READ -> read;
+                case WRITE -> write;
+                case SEARCH -> search;
+                case LIST -> list;
+                case EXPORT -> export;
+                case BULK -> bulk;
+            };
+        }
+
+        @Getter
+        @Setter
+        public static class Budget {
+            /**
+             * Limit before any latency has been observed.
+             */
+            private int initialLimit;
+            /**
+             * Lower bound on the limit.
+             */
+            private int minLimit;
+            /**
+             * Upper bound on the limit.
+             */
+            private int maxLimit;
+
+            public Budget() {
+                this(10, 1, 100);
+            }
+
+            Budget(int initialLimit, int minLimit, int maxLimit) {
+                this.initialLimit = initialLimit;
+                this.minLimit = minLimit;
+                this.maxLimit = maxLimit;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.joshuaingles.Config;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Request Metrics Filter
+ *
+ * Records, per API request, the SQL statements it prepared, the Movies in its
+ * response body and the size of that body, tagged with the method and the
+ * matched URI template like http.server.requests:
+ *
+ * movie.http.sql.statements  statements prepared on the request thread
+ * movie.http.rows            Movies returned, set by ResponseRowsAdvice
+ * movie.http.response.size   bytes written through the response output stream
+ *
+ * A streamed response is recorded once its async processing completes.
+ */
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    public static final String ROWS_ATTRIBUTE = RequestMetricsFilter.class.getName() + ".rows";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingResponse counting = new CountingResponse(response);
+        StatementCounter.begin();
+        try {
+            filterChain.doFilter(request, counting);
+        } finally {
+            long statements = StatementCounter.end();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, counting, statements);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, counting, statements);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, CountingResponse response, long statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", (pattern == null) ? "UNKNOWN" : pattern.toString());
+        DistributionSummary.builder("movie.http.sql.statements").tags(tags)
+            .publishPercentileHistogram().maximumExpectedValue(1_000.0)
+            .register(meterRegistry).record(statements);
+        DistributionSummary.builder("movie.http.response.size").tags(tags).baseUnit(BaseUnits.BYTES)
+            .publishPercentileHistogram().maximumExpectedValue(64.0 * 1024 * 1024)
+            .register(meterRegistry).record(response.bytes);
+        Object rows = request.getAttribute(ROWS_ATTRIBUTE);
+        if (rows instanceof Integer count) {
+            DistributionSummary.builder("movie.http.rows").tags(tags)
+                .publishPercentileHistogram().maximumExpectedValue(10_000.0)
+                .register(meterRegistry).record(count);
+        }
+    }
+
+    // The message converters write through getOutputStream, so that is where the body is counted
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        private long bytes;
+        private ServletOutputStream outputStream;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.joshuaingles.Config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Statement Counter
+ *
+ * Counts the SQL statements Hibernate prepares on the current thread between
+ * begin and end. RequestMetricsFilter brackets each API request with it, which
+ * replaces reading spring.jpa.show-sql output to see how many queries a call makes.
+ *
+ * Statements prepared on a raw JDBC connection, as in Session.doWork, never pass
+ * the inspector, so whoever prepares them counts them with count().
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<long[]>();
+
+    static void begin() {
+        COUNT.set(new long[1]);
+    }
+
+    /**
+     * End
+     *
+     * @return long statements prepared since begin, or 0 when begin was not called
+     */
+    static long end() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return (count == null) ? 0 : count[0];
+    }
+
+    /**
+     * Count
+     *
+     * Counts one statement prepared outside Hibernate on the current thread.
+     */
+    public static void count() {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        count();
+        return sql;
+    }
+}
@@ -4,7 +4,15 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import io.github.joshuaingles.Dto.BulkResult;
+import io.github.joshuaingles.Dto.ImportSummary;
+import io.github.joshuaingles.Dto.MovieBatch;
+import io.github.joshuaingles.Dto.MovieChanges;
+import io.github.joshuaingles.Dto.MovieFacets;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
 import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Service.MovieImportService;
 import io.github.joshuaingles.Service.MovieService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -14,27 +22,57 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 
 @RestController
 @RequestMapping("/api/v1/movies")
 public class MovieController {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    // Any other tag in If-Match cannot be a Movie version, so it never matches
+    private static final Pattern VERSION_TAG = Pattern.compile("\\d{1,18}");
+
     private MovieService movieService;
+    private MovieImportService movieImportService;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, MovieImportService movieImportService, ObjectMapper objectMapper) {
         this.movieService = movieService;
+        this.movieImportService = movieImportService;
+        this.objectMapper = objectMapper;
 
     }
 
@@ -60,7 +98,7 @@ public class MovieController {
         Movie result = movieService.createMovie(movie);
 
         if (result != null) {
-                return new ResponseEntity<>(result, HttpStatus.CREATED);
+                return ResponseEntity.status(HttpStatus.CREATED).eTag(String.valueOf(result.getVersion())).body(result);
             } else {
                 return ResponseEntity.status(HttpStatus.CONFLICT).build();
             }
@@ -94,9 +132,41 @@ public class MovieController {
             }
     }
 
+    @Operation(
+        summary = "Import a Movie catalog",
+        description = "Streams a catalog of Movies from the Request Body, either a JSON array or newline-delimited JSON, "
+            + "committing in chunks. Duplicates and unreadable records are skipped and reported in the summary.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Catalog Imported",
+                content = @Content(
+                    schema = @Schema(implementation = ImportSummary.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Malformed JSON, import stopped. Chunks committed before the error are kept.",
+                content = @Content(
+                    schema = @Schema(implementation = ImportSummary.class)
+                )
+            )
+        }
+    )
+    @PostMapping(value = "/import", consumes = {NDJSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<ImportSummary> importMovies(InputStream body) throws IOException {
+        ImportSummary result = movieImportService.importMovies(body);
+        if (result.complete()) {
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } else {
+            return new ResponseEntity<>(result, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @Operation(
         summary = "Get a Movie",
-        description = "Retrieves a Movie based on the provided id",
+        description = "Retrieves a Movie based on the provided id. The ETag response header holds the Movie's "
+            + "version; sending it back in If-None-Match answers 304 while the Movie is unchanged.",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -105,6 +175,10 @@ public class MovieController {
                     schema = @Schema(implementation = Movie.class)
                 )
             ),
+            @ApiResponse(
+                responseCode = "304", 
+                description = "Movie Not Modified"
+            ),
             @ApiResponse(
                 responseCode = "404", 
                 description = "Movie Not Found"
@@ -112,19 +186,61 @@ public class MovieController {
         }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<Movie> getMovie(@PathVariable Long id) {
+    public ResponseEntity<Movie> getMovie(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // Answered from the version alone, so an unchanged Movie is never loaded
+            Optional<Long> version = movieService.getMovieVersion(id);
+            if (version.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            String tag = String.valueOf(version.get());
+            if (matches(ifNoneMatch, tag, false)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+            }
+        }
         Optional<Movie> result = movieService.getMovie(id);
 
         if (result.isPresent()) {
-                return new ResponseEntity<>(result.get(), HttpStatus.OK);
+                return ResponseEntity.ok().eTag(String.valueOf(result.get().getVersion())).body(result.get());
             } else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
     }
 
+    @Operation(
+        summary = "Get several Movies by id",
+        description = "Retrieves the Movies for the ids in the Request Body in one round trip, in the order "
+            + "requested. Repeated ids are returned once; ids with no Movie are listed in missing.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Movies Retrieved",
+                content = @Content(
+                    schema = @Schema(implementation = MovieBatch.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Null id or too many ids"
+            )
+        }
+    )
+    @PostMapping("/batch-get")
+    public ResponseEntity<MovieBatch> getMoviesByIds(@RequestBody List<Long> ids) {
+        try {
+            return new ResponseEntity<>(movieService.getMoviesByIds(ids), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @Operation(
         summary = "Get All Movies - Optional Filters",
-        description = "Retrieves all Movies with optional filters for releaseYear and genre",
+        description = "Retrieves a page of Movies with optional filters for releaseYear and genre, "
+            + "ordered by id, title or releaseYear. When more Movies remain, the X-Next-Cursor "
+            + "response header holds the cursor for the next page. The ETag changes whenever a Movie "
+            + "matching the filters is written, so If-None-Match answers 304 until then.",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -133,6 +249,14 @@ public class MovieController {
                     array = @ArraySchema(schema = @Schema(implementation = Movie.class))
                 )
             ),
+            @ApiResponse(
+                responseCode = "304", 
+                description = "Movies Not Modified"
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Invalid sort, cursor or limit"
+            ),
             @ApiResponse(
                 responseCode = "404", 
                 description = "Movies Not Found"
@@ -141,9 +265,106 @@ public class MovieController {
     )
     @GetMapping
     public ResponseEntity<List<Movie>> getMovies(@RequestParam(required = false) String releaseYear, 
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        MoviePage result;
+        String tag;
+        try {
+            MovieSort movieSort = MovieSort.fromParam(sort);
+            // Read before the page, so a write landing in between leaves a stale tag rather than a stale 304
+            tag = movieService.getMoviesTag(releaseYear, genre);
+            if (ifNoneMatch != null && matches(ifNoneMatch, tag, false)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+            }
+            result = movieService.getMovies(releaseYear, genre, movieSort, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!result.movies().isEmpty()) {
+                ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK).eTag(tag);
+                if (result.nextCursor() != null) {
+                    response.header(NEXT_CURSOR_HEADER, result.nextCursor());
+                }
+                return response.body(result.movies());
+            } else {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+    }
+
+    @Operation(
+        summary = "Get Movie Facets",
+        description = "Counts the Movies matching the optional releaseYear and genre filters, split by releaseYear "
+            + "and by genre. Served from in-memory counters, so the cost does not grow with the catalog.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Facets Retrieved",
+                content = @Content(
+                    schema = @Schema(implementation = MovieFacets.class)
+                )
+            )
+        }
+    )
+    @GetMapping("/facets")
+    public ResponseEntity<MovieFacets> getFacets(@RequestParam(required = false) String releaseYear,
             @RequestParam(required = false) String genre) {
-        List<Movie> result = movieService.getMovies(releaseYear, genre);
+        return new ResponseEntity<>(movieService.getFacets(releaseYear, genre), HttpStatus.OK);
+    }
 
+    @Operation(
+        summary = "Reconcile Movie Facets",
+        description = "Recounts the facets from the database, replacing the in-memory counters, and returns the "
+            + "unfiltered result.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Facets Reconciled",
+                content = @Content(
+                    schema = @Schema(implementation = MovieFacets.class)
+                )
+            )
+        }
+    )
+    @PostMapping("/facets/reconcile")
+    public ResponseEntity<MovieFacets> reconcileFacets() {
+        movieService.reconcileFacets();
+        return new ResponseEntity<>(movieService.getFacets(null, null), HttpStatus.OK);
+    }
+
+    @Operation(
+        summary = "Search Movies by Title",
+        description = "Retrieves the Movies whose title contains q, ignoring case, accents and punctuation. "
+            + "Titles starting with q come first, then titles with a word starting with q, then any other match.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Movies Retrieved",
+                content = @Content(
+                    array = @ArraySchema(schema = @Schema(implementation = Movie.class))
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Blank q or invalid limit"
+            ),
+            @ApiResponse(
+                responseCode = "404",
+                description = "Movies Not Found"
+            )
+        }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<List<Movie>> searchMovies(@RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit) {
+        List<Movie> result;
+        try {
+            result = movieService.searchMovies(q, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         if (!result.isEmpty()) {
                 return new ResponseEntity<>(result, HttpStatus.OK);
             } else {
@@ -151,9 +372,96 @@ public class MovieController {
             }
     }
 
+    @Operation(
+        summary = "Export All Movies",
+        description = "Streams every Movie as newline-delimited JSON, one Movie per line, in id order",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Movies Exported",
+                content = @Content(
+                    mediaType = NDJSON,
+                    schema = @Schema(implementation = Movie.class)
+                )
+            )
+        }
+    )
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportMovies() {
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writerFor(Movie.class);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Lines are separated by '\n' below, not Jackson's default root separator
+                generator.setRootValueSeparator(null);
+                movieService.exportMovies(movie -> {
+                    try {
+                        writer.writeValue(generator, movie);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @Operation(
+        summary = "Get Movie Changes",
+        description = "Returns the creates, updates and deletes committed after sequence since, oldest first, with the "
+            + "sequence to pass as since next time. With wait, an empty result waits up to that many seconds for the "
+            + "next change. Pass back epoch to detect a restarted instance, whose sequences start again.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Changes Retrieved, possibly none",
+                content = @Content(
+                    schema = @Schema(implementation = MovieChanges.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400",
+                description = "Invalid since, limit or wait"
+            ),
+            @ApiResponse(
+                responseCode = "410",
+                description = "Changes after since are no longer kept, or epoch is stale. Re-read the catalog, then "
+                    + "follow the changes from the returned next",
+                content = @Content(
+                    schema = @Schema(implementation = MovieChanges.class)
+                )
+            )
+        }
+    )
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<MovieChanges>> getChanges(@RequestParam(required = false) String epoch,
+            @RequestParam(defaultValue = "0") long since, @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer wait) {
+        DeferredResult<ResponseEntity<MovieChanges>> response = new DeferredResult<>();
+        CompletableFuture<MovieChanges> changes;
+        try {
+            changes = movieService.awaitChanges(epoch, since, limit, wait);
+        } catch (IllegalArgumentException e) {
+            response.setResult(ResponseEntity.badRequest().build());
+            return response;
+        }
+        changes.whenComplete((result, error) -> {
+            if (error != null) {
+                response.setErrorResult(error);
+            } else if (result != null) {
+                response.setResult(new ResponseEntity<>(result, HttpStatus.OK));
+            } else {
+                response.setResult(new ResponseEntity<>(movieService.getChangesHead(), HttpStatus.GONE));
+            }
+        });
+        return response;
+    }
+
     @Operation(
         summary = "Update Movie",
-        description = "Updates a Movie by id and with data provided in the Request Body",
+        description = "Updates a Movie by id and with data provided in the Request Body. With If-Match, "
+            + "the update only applies while the Movie is still at one of the given ETags.",
         responses = {
             @ApiResponse(
                 responseCode = "200",
@@ -165,20 +473,71 @@ public class MovieController {
             @ApiResponse(
                 responseCode = "404", 
                 description = "Movie Not Found"
+            ),
+            @ApiResponse(
+                responseCode = "409", 
+                description = "Movie Updated Concurrently, or the update would duplicate another Movie's title and releaseYear"
+            ),
+            @ApiResponse(
+                responseCode = "412", 
+                description = "Movie No Longer Matches If-Match"
             )
         }
     )
     @PatchMapping("/{id}")
-    public ResponseEntity<Movie> updateMovie(@PathVariable Long id, @RequestBody Movie moviePatch) {
-        Movie result = movieService.updateMovie(id, moviePatch);
+    public ResponseEntity<Movie> updateMovie(@PathVariable Long id, @RequestBody Movie moviePatch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        List<Long> expectedVersions = expectedVersions(ifMatch);
+        Movie result;
+        try {
+            result = movieService.updateMovie(id, moviePatch, expectedVersions);
+        } catch (OptimisticLockingFailureException e) {
+            // Without versions to check, the Movie was changed under this update rather than before it
+            return new ResponseEntity<>(expectedVersions != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        } catch (DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
 
         if (result != null) {
-            return new ResponseEntity<>(result, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(String.valueOf(result.getVersion())).body(result);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         } 
     }
 
+    @Operation(
+        summary = "Update several Movies",
+        description = "Applies the patches in the Request Body, each naming its Movie by id, in one transaction. "
+            + "Ids with no Movie are skipped and listed in missing.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Movies Updated",
+                content = @Content(
+                    schema = @Schema(implementation = BulkResult.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Patch without an id, or an id patched twice"
+            ),
+            @ApiResponse(
+                responseCode = "409", 
+                description = "A Movie was updated concurrently or would duplicate another; nothing was updated"
+            )
+        }
+    )
+    @PatchMapping("/bulk")
+    public ResponseEntity<BulkResult> updateMovies(@RequestBody List<Movie> moviePatches) {
+        try {
+            return new ResponseEntity<>(movieService.updateMovies(moviePatches), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
     @Operation(
         summary = "Delete Movie",
         description = "Deletes a Movie by id and with data provided in the Request Body",
@@ -194,4 +553,59 @@ public class MovieController {
         movieService.deleteMovie(id);
         return new ResponseEntity<>(HttpStatus.OK);
     } 
+
+    @Operation(
+        summary = "Delete several Movies",
+        description = "Deletes the Movies with the ids in the Request Body in one transaction. "
+            + "Ids with no Movie are listed in missing.",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Movies Deleted",
+                content = @Content(
+                    schema = @Schema(implementation = BulkResult.class)
+                )
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Null id"
+            )
+        }
+    )
+    @DeleteMapping("/bulk")
+    public ResponseEntity<BulkResult> deleteMovies(@RequestBody List<Long> ids) {
+        try {
+            return new ResponseEntity<>(movieService.deleteMovies(ids), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // If-None-Match compares weakly, If-Match strongly (RFC 9110 13.1)
+    private static boolean matches(String header, String tag, boolean strong) {
+        ETag current = ETag.create(tag);
+        for (ETag candidate : ETag.parse(header)) {
+            if (candidate.isWildcard() || candidate.compare(current, strong)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Versions an If-Match header allows, or null when any version will do
+    private static List<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (ETag candidate : ETag.parse(ifMatch)) {
+            if (candidate.isWildcard()) {
+                return null;
+            }
+            if (!candidate.weak() && VERSION_TAG.matcher(candidate.tag()).matches()) {
+                versions.add(Long.valueOf(candidate.tag()));
+            }
+        }
+        return versions;
+    }
 }
\ No newline at end of file
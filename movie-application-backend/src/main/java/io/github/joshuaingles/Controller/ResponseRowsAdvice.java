@@ -0,0 +1,45 @@
+package io.github.joshuaingles.Controller;
+
+import java.util.Collection;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import io.github.joshuaingles.Config.RequestMetricsFilter;
+import io.github.joshuaingles.Dto.MovieBatch;
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Response Rows Advice
+ *
+ * Notes how many Movies a response body carries, for the movie.http.rows metric.
+ */
+@ControllerAdvice
+public class ResponseRowsAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            if (body instanceof Collection<?> movies) {
+                servletRequest.getServletRequest().setAttribute(RequestMetricsFilter.ROWS_ATTRIBUTE, movies.size());
+            } else if (body instanceof MovieBatch batch) {
+                servletRequest.getServletRequest().setAttribute(RequestMetricsFilter.ROWS_ATTRIBUTE, batch.movies().size());
+            } else if (body instanceof Movie) {
+                servletRequest.getServletRequest().setAttribute(RequestMetricsFilter.ROWS_ATTRIBUTE, 1);
+            }
+        }
+        return body;
+    }
+}
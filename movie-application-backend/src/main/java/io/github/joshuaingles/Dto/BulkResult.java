@@ -0,0 +1,12 @@
+package io.github.joshuaingles.Dto;
+
+import java.util.List;
+
+/**
+ * Bulk Result
+ *
+ * Outcome of a bulk patch or delete. affected lists the ids that were written and
+ * missing the ids with no Movie, both in the order they were requested.
+ */
+public record BulkResult(List<Long> affected, List<Long> missing) {
+}
@@ -0,0 +1,17 @@
+package io.github.joshuaingles.Dto;
+
+/**
+ * Import Summary
+ *
+ * Outcome of a streaming catalog import. complete is false when the input was
+ * not well-formed JSON and parsing stopped early; chunks committed before that
+ * point are kept.
+ */
+public record ImportSummary(
+    long inserted,
+    long duplicates,
+    long failed,
+    long elapsedMillis,
+    double moviesPerSecond,
+    boolean complete) {
+}
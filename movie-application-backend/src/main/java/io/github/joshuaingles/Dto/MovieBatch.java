@@ -0,0 +1,14 @@
+package io.github.joshuaingles.Dto;
+
+import java.util.List;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Batch
+ *
+ * Result of a multi-get. movies follow the order the ids were requested in;
+ * missing lists the requested ids with no Movie, in the same order.
+ */
+public record MovieBatch(List<Movie> movies, List<Long> missing) {
+}
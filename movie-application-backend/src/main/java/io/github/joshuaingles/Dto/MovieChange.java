@@ -0,0 +1,18 @@
+package io.github.joshuaingles.Dto;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Change
+ *
+ * One committed write to one Movie, numbered in commit order. movie holds the
+ * Movie as written, and is null for a delete.
+ */
+public record MovieChange(long sequence, Type type, Long id, Movie movie) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.joshuaingles.Dto;
+
+import java.util.List;
+
+/**
+ * Movie Changes
+ *
+ * A run of the change log. next is the sequence to ask for changes since on the
+ * following request. epoch names this run of the log; sequences restart with a
+ * new epoch whenever the application does.
+ */
+public record MovieChanges(String epoch, List<MovieChange> changes, long next) {
+}
@@ -0,0 +1,14 @@
+package io.github.joshuaingles.Dto;
+
+import java.util.Map;
+
+/**
+ * Movie Facets
+ *
+ * Movie counts for a releaseYear/genre filter: total Movies matching it, and how
+ * they split by releaseYear and by genre. A Movie counts once toward each of its
+ * genres, so the genre counts can add up to more than total. Values with no
+ * matching Movie are left out.
+ */
+public record MovieFacets(long total, Map<String, Long> releaseYears, Map<String, Long> genres) {
+}
@@ -0,0 +1,13 @@
+package io.github.joshuaingles.Dto;
+
+import java.util.List;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Page
+ *
+ * One page of a keyset-paginated Movie list. nextCursor is null on the last page.
+ */
+public record MoviePage(List<Movie> movies, String nextCursor) {
+}
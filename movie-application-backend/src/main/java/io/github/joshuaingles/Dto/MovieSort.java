@@ -0,0 +1,53 @@
+package io.github.joshuaingles.Dto;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Movie Sort
+ *
+ * Supported orderings for paged Movie lists. Every ordering ends with id so
+ * that keyset cursors are unique.
+ */
+public enum MovieSort {
+    ID("id"),
+    TITLE("title"),
+    RELEASE_YEAR("releaseYear");
+
+    private final String property;
+
+    MovieSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort toSort() {
+        if (this == ID) {
+            return Sort.by("id");
+        }
+        return Sort.by(property).and(Sort.by("id"));
+    }
+
+    /**
+     * From Param
+     *
+     * Resolves the sort request param, which uses the Movie property name.
+     *
+     * @param param String
+     * @return MovieSort
+     * @throws IllegalArgumentException for unsupported values
+     */
+    public static MovieSort fromParam(String param) {
+        if (param == null || param.isBlank()) {
+            return ID;
+        }
+        for (MovieSort sort : values()) {
+            if (sort.property.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort: " + param);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.joshuaingles.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Genre
+ *
+ * One row per distinct genre name, under the id Movie rows refer to it by in
+ * their genre_ids column. Rows are only ever added, by GenreDictionary.intern,
+ * so an id keeps its name for good.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_genre_name", columnNames = "name"))
+@NoArgsConstructor
+@Getter
+public class Genre {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Integer id;
+
+    @Column(nullable = false)
+    String name;
+}
@@ -1,32 +1,220 @@
 package io.github.joshuaingles.Entity;
 
 import java.util.List;
+import java.util.Objects;
 
-import jakarta.persistence.ElementCollection;
+import org.hibernate.annotations.Immutable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.github.joshuaingles.Repository.GenreListConverter;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@AllArgsConstructor
+// (title, release_year, release_year_text) is the natural key checked on every create. It is unique with
+// nulls not distinct, which JPA cannot declare, so the constraint is added by import.sql. The composite
+// indexes back keyset pagination by title or releaseYear and the releaseYear filters.
+@Table(
+    indexes = {
+        @Index(name = "idx_movie_title_id", columnList = "title, id"),
+        @Index(name = "idx_movie_release_year_id", columnList = "release_year, id")
+    }
+)
 @NoArgsConstructor
-@Setter
-@Getter
-@Builder
 public class Movie {
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_seq")
+    @SequenceGenerator(name = "movie_seq", sequenceName = "movie_seq", allocationSize = 50)
+    @Getter
+    @Setter
     Long id;
 
+    @Getter
+    @Setter
     String title;
-    String releaseYear;
 
-    @ElementCollection
+    // Stored as a smallint, 0 for no year, which is what filters, facets and sorting go by
+    @Column(name = "release_year", nullable = false)
+    short releaseYear;
+
+    // The releaseYear exactly as given, kept only when the smallint does not reproduce it
+    @Column(name = "release_year_text")
+    String releaseYearText;
+
+    // Incremented by Hibernate on every update. It is the Movie's ETag and what If-Match is checked against.
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Getter
+    @Setter
+    long version;
+
+    // Stored as an array of genre table ids on the movie row, in the order given, duplicates and nulls
+    // included, so no read needs a join. Lists are never changed in place, so Hibernate need not copy them.
+    @Convert(converter = GenreListConverter.class)
+    @Column(name = "genre_ids", nullable = false, columnDefinition = "integer array")
+    @Immutable
+    @Getter
     List<String> genres;
+
+    public static MovieBuilder builder() {
+        return new MovieBuilder();
+    }
+
+    /**
+     * @return String exactly as it was given
+     */
+    public String getReleaseYear() {
+        return (releaseYearText != null) ? releaseYearText : formatYear(releaseYear);
+    }
+
+    /**
+     * @param releaseYear String kept as given; filters, facets and sorting see the year
+     *        it holds, from 1 to 9999, or no year when it holds none
+     */
+    public void setReleaseYear(String releaseYear) {
+        this.releaseYear = yearOf(releaseYear);
+        this.releaseYearText = Objects.equals(releaseYear, formatYear(this.releaseYear)) ? null : releaseYear;
+    }
+
+    /**
+     * @param genres List<String> kept as given, and not to be changed afterwards; null to leave the genres unset
+     */
+    public void setGenres(List<String> genres) {
+        this.genres = genres;
+    }
+
+    @JsonIgnore
+    public short getReleaseYearNumber() {
+        return releaseYear;
+    }
+
+    /**
+     * @return String the releaseYear as given, null when getReleaseYearNumber reproduces it
+     */
+    @JsonIgnore
+    public String getReleaseYearText() {
+        return releaseYearText;
+    }
+
+    /**
+     * Parse Year
+     *
+     * @param releaseYear String
+     * @return short 0 for null or blank
+     * @throws IllegalArgumentException when releaseYear is not a year from 1 to 9999
+     */
+    public static short parseYear(String releaseYear) {
+        if (releaseYear == null || releaseYear.isBlank()) {
+            return 0;
+        }
+        String digits = releaseYear.strip();
+        if (digits.length() > 4 || !digits.chars().allMatch(c -> c >= '0' && c <= '9') || Integer.parseInt(digits) == 0) {
+            throw new IllegalArgumentException("releaseYear must be a year from 1 to 9999, got '" + releaseYear + "'");
+        }
+        return Short.parseShort(digits);
+    }
+
+    /**
+     * Year Of
+     *
+     * @param releaseYear String
+     * @return short the year parseYear reads, 0 when releaseYear is not a year
+     */
+    public static short yearOf(String releaseYear) {
+        try {
+            return parseYear(releaseYear);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Format Year
+     *
+     * @param releaseYear short
+     * @return String null for 0
+     */
+    public static String formatYear(short releaseYear) {
+        return (releaseYear == 0) ? null : String.valueOf(releaseYear);
+    }
+
+    /**
+     * Movie Builder
+     *
+     * Takes releaseYear in its API form, or as stored through releaseYearNumber
+     * and releaseYearText.
+     */
+    public static class MovieBuilder {
+        private Long id;
+        private String title;
+        private short releaseYear;
+        private String releaseYearText;
+        private long version;
+        private List<String> genres;
+
+        MovieBuilder() {
+        }
+
+        public MovieBuilder id(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public MovieBuilder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public MovieBuilder releaseYear(String releaseYear) {
+            this.releaseYear = yearOf(releaseYear);
+            this.releaseYearText = Objects.equals(releaseYear, formatYear(this.releaseYear)) ? null : releaseYear;
+            return this;
+        }
+
+        public MovieBuilder releaseYearNumber(short releaseYear) {
+            this.releaseYear = releaseYear;
+            return this;
+        }
+
+        public MovieBuilder releaseYearText(String releaseYearText) {
+            this.releaseYearText = releaseYearText;
+            return this;
+        }
+
+        public MovieBuilder version(long version) {
+            this.version = version;
+            return this;
+        }
+
+        public MovieBuilder genres(List<String> genres) {
+            this.genres = genres;
+            return this;
+        }
+
+        public Movie build() {
+            Movie movie = new Movie();
+            movie.id = id;
+            movie.title = title;
+            movie.releaseYear = releaseYear;
+            movie.releaseYearText = releaseYearText;
+            movie.version = version;
+            movie.genres = genres;
+            return movie;
+        }
+    }
 }
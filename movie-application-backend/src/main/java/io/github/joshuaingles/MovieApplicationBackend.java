@@ -2,8 +2,10 @@ package io.github.joshuaingles;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class MovieApplicationBackend {
 
 	public static void main(String[] args) {
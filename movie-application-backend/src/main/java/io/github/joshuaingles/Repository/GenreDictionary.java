@@ -0,0 +1,231 @@
+package io.github.joshuaingles.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.github.joshuaingles.Config.StatementCounter;
+
+/**
+ * Genre Dictionary
+ *
+ * The genre table held in memory: every genre name once, under the id Movie
+ * rows refer to it by in their genre_ids arrays. GenreListConverter turns a
+ * Movie's genre names into ids on the way to the row, and back on the way out.
+ *
+ * New genres are interned by the MovieService write methods, inside their
+ * transaction and before any Movie carrying them is written. The genre row is
+ * inserted on the transaction's own connection, so it commits or rolls back
+ * with the Movies, and until the commit only that transaction looks the genre
+ * up by name. Two transactions interning the same genre meet at the unique
+ * name constraint, and the later one takes the earlier one's id.
+ *
+ * Ids are only ever added, so the number of genres is not limited and a name
+ * list, once read, stays valid. The lists returned for an id array are shared
+ * and immutable, so cached Movies with the same genres share one list.
+ */
+@Component
+public class GenreDictionary implements SmartInitializingSingleton {
+
+    // Beyond this many distinct combinations the name lists are built per call rather than kept
+    private static final int MAX_SHARED_LISTS = 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+    // Committed genres by name
+    private final Map<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    // Every id handed out, committed or not, so any row carrying it can be read
+    private final Map<Integer, String> names = new ConcurrentHashMap<Integer, String>();
+    private final Map<List<Integer>, List<String>> lists = new ConcurrentHashMap<List<Integer>, List<String>>();
+
+    public GenreDictionary(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // Picks up the genres of a catalog that outlived the process; the in-memory default starts empty
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.query("select id, name from genre", row -> {
+            ids.put(row.getString(2), row.getInt(1));
+            names.put(row.getInt(1), row.getString(2));
+        });
+    }
+
+    /**
+     * Intern
+     *
+     * Gives every genre not yet in the dictionary a row in the genre table, as
+     * part of the current transaction. Null genres are skipped.
+     *
+     * @param genres Collection<String>
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void intern(Collection<String> genres) {
+        Map<String, Integer> pending = pending();
+        // In name order, so transactions interning the same new genres wait on each other rather than deadlock
+        List<String> missing = genres.stream()
+            .filter(genre -> genre != null && !ids.containsKey(genre) && !pending.containsKey(genre))
+            .distinct().sorted().toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            for (String genre : missing) {
+                insert(connection, genre, pending);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Ids
+     *
+     * @param genres List<String>
+     * @return Integer[] the id of each genre, in order, null for a null genre
+     * @throws IllegalStateException for a genre that was not interned first
+     */
+    public Integer[] ids(List<String> genres) {
+        Map<String, Integer> pending = pendingIfAny();
+        Integer[] result = new Integer[genres.size()];
+        for (int i = 0; i < result.length; i++) {
+            String genre = genres.get(i);
+            if (genre == null) {
+                continue;
+            }
+            result[i] = ids.getOrDefault(genre, pending.get(genre));
+            if (result[i] == null) {
+                throw new IllegalStateException("Genre '" + genre + "' has not been interned");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Id Of
+     *
+     * Id of one genre without interning it, for filters.
+     *
+     * @param genre String
+     * @return Integer null when no Movie can carry the genre
+     */
+    public Integer idOf(String genre) {
+        if (genre == null) {
+            return null;
+        }
+        Integer id = ids.get(genre);
+        return (id != null) ? id : pendingIfAny().get(genre);
+    }
+
+    /**
+     * Names
+     *
+     * @param genreIds Integer[] as stored, null elements included
+     * @return List<String> immutable, the genre of each id in order
+     * @throws IllegalStateException for an id the genre table never handed out
+     */
+    public List<String> names(Integer[] genreIds) {
+        if (genreIds.length == 0) {
+            return List.of();
+        }
+        List<String> shared = lists.get(Arrays.asList(genreIds));
+        if (shared != null) {
+            return shared;
+        }
+        String[] genres = new String[genreIds.length];
+        for (int i = 0; i < genreIds.length; i++) {
+            if (genreIds[i] == null) {
+                continue;
+            }
+            genres[i] = names.get(genreIds[i]);
+            if (genres[i] == null) {
+                throw new IllegalStateException("Genre id " + genreIds[i] + " is not in the dictionary");
+            }
+        }
+        List<String> result = Collections.unmodifiableList(Arrays.asList(genres));
+        if (lists.size() < MAX_SHARED_LISTS) {
+            lists.putIfAbsent(Arrays.asList(genreIds.clone()), result);
+        }
+        return result;
+    }
+
+    private void insert(Connection connection, String genre, Map<String, Integer> pending) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        StatementCounter.count();
+        try (PreparedStatement insert = connection.prepareStatement("insert into genre (name) values (?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, genre);
+            insert.executeUpdate();
+            try (ResultSet key = insert.getGeneratedKeys()) {
+                key.next();
+                int id = key.getInt(1);
+                connection.releaseSavepoint(savepoint);
+                names.put(id, genre);
+                pending.put(genre, id);
+                return;
+            }
+        } catch (SQLException e) {
+            // 23505: a concurrent transaction committed the genre first
+            if (!"23505".equals(e.getSQLState())) {
+                throw e;
+            }
+            connection.rollback(savepoint);
+        }
+        StatementCounter.count();
+        try (PreparedStatement select = connection.prepareStatement("select id from genre where name = ?")) {
+            select.setString(1, genre);
+            try (ResultSet row = select.executeQuery()) {
+                row.next();
+                names.put(row.getInt(1), genre);
+                ids.put(genre, row.getInt(1));
+            }
+        }
+    }
+
+    // Genres this transaction has added, published to every other one once it commits
+    private Map<String, Integer> pending() {
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> pending = (Map<String, Integer>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, Integer> bound = new HashMap<String, Integer>();
+            pending = bound;
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(GenreDictionary.this);
+                    if (status == STATUS_COMMITTED) {
+                        ids.putAll(bound);
+                    }
+                }
+            });
+        }
+        return pending;
+    }
+
+    private Map<String, Integer> pendingIfAny() {
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> pending = (Map<String, Integer>) TransactionSynchronizationManager.getResource(this);
+        return Objects.requireNonNullElse(pending, Map.of());
+    }
+}
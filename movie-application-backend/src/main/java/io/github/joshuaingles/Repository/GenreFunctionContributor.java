@@ -0,0 +1,26 @@
+package io.github.joshuaingles.Repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Genre Function Contributor
+ *
+ * Registers has_genre_id(genres, id) for MovieSpecifications. Hibernate's own
+ * array_contains only takes an attribute it maps as an array, and Movie.genres
+ * is a List of names converted to the genre_ids array, so the function is
+ * declared here without that check. Found by Hibernate through
+ * META-INF/services.
+ */
+public class GenreFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry()
+            .patternDescriptorBuilder("has_genre_id", "array_contains(?1, ?2)")
+            .setExactArgumentCount(2)
+            .setInvariantType(functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN))
+            .register();
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.joshuaingles.Repository;
+
+import java.util.List;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Genre List Converter
+ *
+ * Maps a Movie's genre names to the genre_ids array on its row and back,
+ * through the GenreDictionary. Unset genres are stored as an empty array.
+ * Hibernate gets it from Spring, so the dictionary is injected.
+ */
+@Converter
+public class GenreListConverter implements AttributeConverter<List<String>, Integer[]> {
+
+    private final GenreDictionary genreDictionary;
+
+    public GenreListConverter(GenreDictionary genreDictionary) {
+        this.genreDictionary = genreDictionary;
+    }
+
+    @Override
+    public Integer[] convertToDatabaseColumn(List<String> genres) {
+        return genreDictionary.ids((genres == null) ? List.of() : genres);
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(Integer[] genreIds) {
+        return genreDictionary.names((genreIds == null) ? new Integer[0] : genreIds);
+    }
+}
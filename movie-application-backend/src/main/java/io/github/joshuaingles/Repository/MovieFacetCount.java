@@ -0,0 +1,17 @@
+package io.github.joshuaingles.Repository;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Facet Count
+ *
+ * Number of Movies sharing a releaseYear, or a releaseYear and genre, as counted
+ * by the MovieRepository aggregate queries. genre is null for per-year counts.
+ */
+public record MovieFacetCount(String releaseYear, String genre, long movies) {
+
+    // From the stored year, as the aggregate queries group by it
+    public MovieFacetCount(short releaseYear, String genre, long movies) {
+        this(Movie.formatYear(releaseYear), genre, movies);
+    }
+}
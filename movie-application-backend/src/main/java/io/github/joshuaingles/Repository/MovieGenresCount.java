@@ -0,0 +1,12 @@
+package io.github.joshuaingles.Repository;
+
+import java.util.List;
+
+/**
+ * Movie Genres Count
+ *
+ * Number of Movies sharing a stored releaseYear and genre list, from which
+ * MovieRepository derives the per-genre facet counts.
+ */
+public record MovieGenresCount(short releaseYear, List<String> genres, long movies) {
+}
@@ -0,0 +1,17 @@
+package io.github.joshuaingles.Repository;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Key
+ *
+ * Projection of the natural key of a Movie, used to deduplicate bulk inserts
+ * without loading full entities. releaseYear and releaseYearText are as stored,
+ * so two keys are equal exactly when the titles and the given releaseYears are.
+ */
+public record MovieKey(String title, short releaseYear, String releaseYearText) {
+
+    public static MovieKey of(Movie movie) {
+        return new MovieKey(movie.getTitle(), movie.getReleaseYearNumber(), movie.getReleaseYearText());
+    }
+}
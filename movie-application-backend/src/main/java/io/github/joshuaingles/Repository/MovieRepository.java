@@ -1,16 +1,129 @@
 package io.github.joshuaingles.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import io.github.joshuaingles.Entity.Movie;
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Long>{
-    Movie findByTitleAndReleaseYear(String title, String releaseYear);
-    List<Movie> findByReleaseYearAndGenresContaining(String releaseYear, String genre);
-    List<Movie> findByReleaseYear(String releaseYear);
-    List<Movie> findByGenresContaining(String genre);
+public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecificationExecutor<Movie>, MovieRepositoryCustom {
+    // The natural key: the title and the releaseYear exactly as given
+    Movie findByTitleAndReleaseYearAndReleaseYearText(String title, short releaseYear, String releaseYearText);
+    default Movie findByTitleAndReleaseYear(String title, String releaseYear) {
+        Movie key = Movie.builder().releaseYear(releaseYear).build();
+        return findByTitleAndReleaseYearAndReleaseYearText(title, key.getReleaseYearNumber(), key.getReleaseYearText());
+    }
+
+    // Conditional GETs compare this against If-None-Match without loading the Movie
+    @Query("select m.version from Movie m where m.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    // Genres live in genre_ids on the movie row, so no read needs a join or a second query for them.
+    // Filters take the API's string year, and the genre's GenreDictionary id; a year that is not a
+    // year, or a genre without an id, matches nothing.
+    default List<Movie> findByReleaseYearAndGenreId(String releaseYear, Integer genreId) {
+        return findAll(MovieSpecifications.hasReleaseYear(releaseYear).and(MovieSpecifications.hasGenre(genreId)));
+    }
+    List<Movie> findByReleaseYear(short releaseYear);
+    default List<Movie> findByReleaseYear(String releaseYear) {
+        Short year = MovieSpecifications.filterYear(releaseYear);
+        return (year == null) ? List.of() : findByReleaseYear(year.shortValue());
+    }
+    default List<Movie> findByGenreId(Integer genreId) {
+        return findAll(MovieSpecifications.hasGenre(genreId));
+    }
+
+    // "title in" never matches a null title, so null titles are looked up with "is null" when the batch has one;
+    // the unique constraint treats them as the same title, and so must the bulk create deduplication.
+    // Two queries rather than one with an "or", which H2 answers by scanning every movie instead of the title index.
+    @Query("select new io.github.joshuaingles.Repository.MovieKey(m.title, m.releaseYear, m.releaseYearText) "
+        + "from Movie m where m.title in :titles")
+    List<MovieKey> findKeysByTitleIn(Collection<String> titles);
+    @Query("select new io.github.joshuaingles.Repository.MovieKey(m.title, m.releaseYear, m.releaseYearText) "
+        + "from Movie m where m.title is null")
+    List<MovieKey> findKeysByTitleIsNull();
+    default List<MovieKey> findByTitleIn(Collection<String> titles) {
+        List<String> named = titles.stream().filter(title -> title != null).toList();
+        List<MovieKey> keys = named.isEmpty() ? new ArrayList<>() : new ArrayList<>(findKeysByTitleIn(named));
+        if (named.size() < titles.size()) {
+            keys.addAll(findKeysByTitleIsNull());
+        }
+        return keys;
+    }
+
+    @Query("select m from Movie m where m.id in :ids")
+    List<Movie> findByIdIn(Collection<Long> ids);
+    List<Movie> findByTitleContainingIgnoreCase(String title, Sort sort, Limit limit);
+
+    // Keyset-paginated variants, ordered by the given sort and then id. The position is applied
+    // through MovieSpecifications.after, which pages past null titles, and the scroll starts afresh.
+    default Window<Movie> findAllBy(ScrollPosition position, Sort sort, Limit limit) {
+        return scroll(Specification.where(null), position, sort, limit);
+    }
+    default Window<Movie> findByReleaseYear(String releaseYear, ScrollPosition position, Sort sort, Limit limit) {
+        return scroll(MovieSpecifications.hasReleaseYear(releaseYear), position, sort, limit);
+    }
+
+    // Genre filters test the genre_ids array of each row the year, or the key order, walks
+    default Window<Movie> findByReleaseYearAndGenreId(String releaseYear, Integer genreId, ScrollPosition position, Sort sort, Limit limit) {
+        return scroll(MovieSpecifications.hasReleaseYear(releaseYear).and(MovieSpecifications.hasGenre(genreId)), position, sort, limit);
+    }
+    default Window<Movie> findByGenreId(Integer genreId, ScrollPosition position, Sort sort, Limit limit) {
+        return scroll(MovieSpecifications.hasGenre(genreId), position, sort, limit);
+    }
+    private Window<Movie> scroll(Specification<Movie> spec, ScrollPosition position, Sort sort, Limit limit) {
+        return findBy(spec.and(MovieSpecifications.after(position)),
+            query -> query.sortBy(sort).limit(limit.max()).scroll(ScrollPosition.keyset()));
+    }
+
+    // Facet counts, for reconciling the in-memory counts. Genres are counted per distinct (year, genres)
+    // group and the groups' genres expanded here, each distinct non-null genre of a group once.
+    @Query("select new io.github.joshuaingles.Repository.MovieFacetCount(m.releaseYear, cast(null as String), count(m)) "
+        + "from Movie m group by m.releaseYear")
+    List<MovieFacetCount> countByReleaseYear();
+    @Query("select new io.github.joshuaingles.Repository.MovieGenresCount(m.releaseYear, m.genres, count(m)) "
+        + "from Movie m group by m.releaseYear, m.genres")
+    List<MovieGenresCount> countByReleaseYearAndGenres();
+    default List<MovieFacetCount> countByReleaseYearAndGenre() {
+        Map<Short, Map<String, Long>> counts = new HashMap<Short, Map<String, Long>>();
+        for (MovieGenresCount count : countByReleaseYearAndGenres()) {
+            Map<String, Long> byGenre = counts.computeIfAbsent(count.releaseYear(), year -> new HashMap<String, Long>());
+            for (String genre : new HashSet<String>(count.genres())) {
+                if (genre != null) {
+                    byGenre.merge(genre, count.movies(), Long::sum);
+                }
+            }
+        }
+        List<MovieFacetCount> result = new ArrayList<MovieFacetCount>();
+        counts.forEach((year, byGenre) -> byGenre.forEach((genre, movies) -> result.add(new MovieFacetCount(year, genre, movies))));
+        return result;
+    }
+
+    // Full-catalog cursor for exports; must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select m from Movie m order by m.id")
+    Stream<Movie> streamAllBy();
 }
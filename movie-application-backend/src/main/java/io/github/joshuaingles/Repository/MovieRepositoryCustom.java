@@ -0,0 +1,16 @@
+package io.github.joshuaingles.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import io.github.joshuaingles.Entity.Movie;
+
+public interface MovieRepositoryCustom {
+    List<Movie> insertAll(List<Movie> movies);
+    void clearPersistenceContext();
+    Movie patch(Long id, Movie patch, Collection<Long> expectedVersions);
+    int[] updateAll(List<Movie> movies);
+    int removeAll(Collection<Long> ids);
+    void restoreAll(List<Movie> movies);
+    void restartIdSequence(long maxId);
+}
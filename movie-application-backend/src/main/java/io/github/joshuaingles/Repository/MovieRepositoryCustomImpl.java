@@ -0,0 +1,321 @@
+package io.github.joshuaingles.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joshuaingles.Config.StatementCounter;
+import io.github.joshuaingles.Entity.Movie;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+class MovieRepositoryCustomImpl implements MovieRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final GenreDictionary genreDictionary;
+
+    MovieRepositoryCustomImpl(GenreDictionary genreDictionary) {
+        this.genreDictionary = genreDictionary;
+    }
+
+    /**
+     * Insert All
+     *
+     * Inserts new movies as one JDBC batch, with ids drawn from Hibernate's
+     * movie_seq generator, bypassing the persistence context. Their genres must
+     * have been interned; unset genres are stored as none, and left unset on the
+     * Movies.
+     *
+     * The batch runs under a savepoint. A Movie whose title and releaseYear were
+     * taken after the caller checked for them, by a concurrent create, fails the
+     * batch on the unique constraint; the batch is then rolled back to the
+     * savepoint and retried a row at a time, each under its own savepoint, and
+     * the conflicting rows are skipped. Going through Hibernate's flush instead
+     * would leave the whole transaction marked for rollback on the first conflict.
+     *
+     * @param movies List<Movie>
+     * @return List<Movie> the Movies inserted, without those skipped as duplicates
+     */
+    @Override
+    @Transactional
+    public List<Movie> insertAll(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return movies;
+        }
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator ids = (IdentifierGenerator) session.getEntityPersister(null, movies.get(0)).getGenerator();
+        for (Movie movie : movies) {
+            movie.setId((Long) ids.generate(session, movie));
+            movie.setVersion(0);
+        }
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement insert = prepare(connection,
+                    "insert into movie (id, title, release_year, release_year_text, genre_ids, version) values (?, ?, ?, ?, ?, ?)")) {
+                Savepoint batch = connection.setSavepoint();
+                try {
+                    for (Movie movie : movies) {
+                        bind(insert, movie, genreDictionary);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    connection.releaseSavepoint(batch);
+                    return movies;
+                } catch (SQLException e) {
+                    if (!isDuplicate(e)) {
+                        throw e;
+                    }
+                    insert.clearBatch();
+                    connection.rollback(batch);
+                }
+                List<Movie> inserted = new ArrayList<Movie>();
+                for (Movie movie : movies) {
+                    Savepoint row = connection.setSavepoint();
+                    try {
+                        bind(insert, movie, genreDictionary);
+                        StatementCounter.count();
+                        insert.executeUpdate();
+                        connection.releaseSavepoint(row);
+                        inserted.add(movie);
+                    } catch (SQLException e) {
+                        if (!isDuplicate(e)) {
+                            throw e;
+                        }
+                        connection.rollback(row);
+                    }
+                }
+                return inserted;
+            }
+        });
+    }
+
+    /**
+     * Clear Persistence Context
+     *
+     * Detaches every managed entity so long-running reads such as exports keep
+     * a bounded first-level cache.
+     */
+    @Override
+    public void clearPersistenceContext() {
+        entityManager.clear();
+    }
+
+    /**
+     * Patch
+     *
+     * Updates only the title, releaseYear and genres the patch carries, and bumps
+     * the version, in one statement that also returns the row as it was before.
+     * The patch's genres must have been interned.
+     *
+     * @param id Long
+     * @param patch Movie
+     * @param expectedVersions Collection<Long> versions the row must be at, null for any; must not be empty
+     * @return Movie as it was before the update, or null when no row matched
+     */
+    @Override
+    @Transactional
+    public Movie patch(Long id, Movie patch, Collection<Long> expectedVersions) {
+        List<Object> parameters = new ArrayList<Object>();
+        StringBuilder update = new StringBuilder("update movie set version = version + 1");
+        if (patch.getTitle() != null) {
+            update.append(", title = ?");
+            parameters.add(patch.getTitle());
+        }
+        if (patch.getReleaseYear() != null) {
+            update.append(", release_year = ?, release_year_text = ?");
+            parameters.add(patch.getReleaseYearNumber());
+            parameters.add(patch.getReleaseYearText());
+        }
+        if (patch.getGenres() != null) {
+            update.append(", genre_ids = ?");
+            parameters.add(genreDictionary.ids(patch.getGenres()));
+        }
+        update.append(" where id = ?");
+        parameters.add(id);
+        if (expectedVersions != null) {
+            update.append(" and version in (").append(String.join(", ", Collections.nCopies(expectedVersions.size(), "?"))).append(")");
+            parameters.addAll(expectedVersions);
+        }
+        // H2 returns the updated rows' prior values from OLD TABLE, saving a read before the write
+        String sql = "select o.id, o.title, o.release_year, o.release_year_text, o.version, o.genre_ids from old table (" + update + ") o";
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet row = statement.executeQuery()) {
+                    if (!row.next()) {
+                        return null;
+                    }
+                    return Movie.builder().id(row.getLong(1)).title(row.getString(2)).releaseYearNumber(row.getShort(3))
+                        .releaseYearText(row.getString(4)).version(row.getLong(5)).genres(genres(row.getArray(6))).build();
+                }
+            }
+        });
+    }
+
+    /**
+     * Update All
+     *
+     * Writes the title, releaseYear, genres and version of each Movie as one JDBC batch,
+     * bypassing the persistence context. Their genres must have been interned. A row only matches while it is still at
+     * the version before the given one, so a Movie changed concurrently updates
+     * nothing.
+     *
+     * @param movies List<Movie> carrying their new state and version
+     * @return int[] rows updated per Movie, 0 where the version no longer matched
+     */
+    @Override
+    @Transactional
+    public int[] updateAll(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return new int[0];
+        }
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement update = prepare(connection,
+                    "update movie set title = ?, release_year = ?, release_year_text = ?, genre_ids = ?, version = ? "
+                    + "where id = ? and version = ?")) {
+                for (Movie movie : movies) {
+                    update.setString(1, movie.getTitle());
+                    update.setShort(2, movie.getReleaseYearNumber());
+                    update.setString(3, movie.getReleaseYearText());
+                    update.setObject(4, genreIds(movie, genreDictionary));
+                    update.setLong(5, movie.getVersion());
+                    update.setLong(6, movie.getId());
+                    update.setLong(7, movie.getVersion() - 1);
+                    update.addBatch();
+                }
+                return update.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Remove All
+     *
+     * Deletes the given Movies with one statement, without loading them first.
+     *
+     * @param ids Collection<Long>
+     * @return int number of Movies deleted
+     */
+    @Override
+    @Transactional
+    public int removeAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createNativeQuery("delete from movie where id in (:ids)")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+
+    /**
+     * Restore All
+     *
+     * Inserts Movies exactly as given, ids and versions included, with one
+     * statement. Meant for Movies read back from a snapshot, whose ids the
+     * sequence has not handed out, and whose genres have been interned.
+     *
+     * @param movies List<Movie>
+     */
+    @Override
+    @Transactional
+    public void restoreAll(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return;
+        }
+        Long[] ids = new Long[movies.size()];
+        String[] titles = new String[movies.size()];
+        Short[] years = new Short[movies.size()];
+        String[] yearTexts = new String[movies.size()];
+        Integer[][] genreIds = new Integer[movies.size()][];
+        Long[] versions = new Long[movies.size()];
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            ids[i] = movie.getId();
+            titles[i] = movie.getTitle();
+            years[i] = movie.getReleaseYearNumber();
+            yearTexts[i] = movie.getReleaseYearText();
+            genreIds[i] = genreIds(movie, genreDictionary);
+            versions[i] = movie.getVersion();
+        }
+        // H2 unpacks array parameters into rows with TABLE, so the whole chunk takes one statement rather than one per row
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = prepare(connection, "insert into movie (id, title, release_year, release_year_text, "
+                    + "genre_ids, version) select * from table(id bigint = ?, title varchar = ?, release_year smallint = ?, "
+                    + "release_year_text varchar = ?, genre_ids integer array = ?, version bigint = ?)")) {
+                insert.setObject(1, ids);
+                insert.setObject(2, titles);
+                insert.setObject(3, years);
+                insert.setObject(4, yearTexts);
+                insert.setObject(5, genreIds);
+                insert.setObject(6, versions);
+                insert.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Restart Id Sequence
+     *
+     * Moves movie_seq past maxId, so Movies created after a restore never collide
+     * with a restored id. The sequence hands out blocks of 50, which the restart
+     * leaves room for.
+     *
+     * @param maxId long highest id in use
+     */
+    @Override
+    @Transactional
+    public void restartIdSequence(long maxId) {
+        entityManager.createNativeQuery("alter sequence movie_seq restart with " + (maxId + 51)).executeUpdate();
+    }
+
+    private static void bind(PreparedStatement insert, Movie movie, GenreDictionary genreDictionary) throws SQLException {
+        insert.setLong(1, movie.getId());
+        insert.setString(2, movie.getTitle());
+        insert.setShort(3, movie.getReleaseYearNumber());
+        insert.setString(4, movie.getReleaseYearText());
+        insert.setObject(5, genreIds(movie, genreDictionary));
+        insert.setLong(6, movie.getVersion());
+    }
+
+    // Unset genres are stored as none
+    private static Integer[] genreIds(Movie movie, GenreDictionary genreDictionary) {
+        return genreDictionary.ids((movie.getGenres() == null) ? List.of() : movie.getGenres());
+    }
+
+    private List<String> genres(Array genreIds) throws SQLException {
+        Object[] elements = (Object[]) genreIds.getArray();
+        return genreDictionary.names(Arrays.copyOf(elements, elements.length, Integer[].class));
+    }
+
+    // 23505 is the SQL state of a unique constraint violation, also carried by a failed batch
+    private static boolean isDuplicate(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if ("23505".equals(cause.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Raw JDBC bypasses Hibernate's StatementInspector, so the per-request statement count is kept here
+    private static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        StatementCounter.count();
+        return connection.prepareStatement(sql);
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.joshuaingles.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.jpa.domain.Specification;
+
+import io.github.joshuaingles.Entity.Movie;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Movie Specifications
+ *
+ * Criteria for the keyset-paginated filters, as Spring Data cannot scroll
+ * string-based queries. A Movie's genres are ids in the genre_ids array of its
+ * row, so the genre filter is an array_contains on the row the page is already
+ * reading and the page walks movies in key order until it is full. A genre the
+ * GenreDictionary has no id for matches nothing, as does a year that is not a year.
+ *
+ * Keyset positions are applied here as well rather than by Spring Data, whose
+ * keyset predicate compares every key with greater-than and so skips all rows
+ * past a null title. after orders nulls first, as H2 and MovieIndex do.
+ */
+public final class MovieSpecifications {
+
+    private MovieSpecifications() {
+    }
+
+    /**
+     * @param genreId Integer id of the genre from GenreDictionary.idOf, null when it has none
+     * @return Specification<Movie>
+     */
+    public static Specification<Movie> hasGenre(Integer genreId) {
+        return (root, query, cb) -> (genreId == null) ? cb.disjunction()
+            : cb.isTrue(cb.function("has_genre_id", Boolean.class, root.get("genres"), cb.literal(genreId)));
+    }
+
+    public static Specification<Movie> hasReleaseYear(String releaseYear) {
+        Short year = filterYear(releaseYear);
+        return (root, query, cb) -> (year == null) ? cb.disjunction() : cb.equal(root.get("releaseYear"), year);
+    }
+
+    /**
+     * Filter Year
+     *
+     * @param releaseYear String as given to a filter
+     * @return Short the stored year to match, null when releaseYear is not a year and nothing matches
+     */
+    public static Short filterYear(String releaseYear) {
+        try {
+            short year = Movie.parseYear(releaseYear);
+            return (year == 0) ? null : year;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * After
+     *
+     * Rows past a forward keyset position, in the order of its keys: a null key
+     * sorts before every value, so past a null come the other nulls with a later
+     * tie-breaker and then every non-null value.
+     *
+     * @param position ScrollPosition a keyset position, or the initial one for every row
+     * @return Specification<Movie>
+     * @throws IllegalArgumentException for offset or backward positions
+     */
+    public static Specification<Movie> after(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset) || keyset.scrollsBackward()) {
+            throw new IllegalArgumentException("Only forward keyset positions are supported, got " + position);
+        }
+        List<Map.Entry<String, Object>> keys = new ArrayList<Map.Entry<String, Object>>(keyset.getKeys().entrySet());
+        return (root, query, cb) -> {
+            if (keys.isEmpty()) {
+                return cb.conjunction();
+            }
+            // (k1 > v1) or (k1 = v1 and k2 > v2) or ...
+            Predicate[] after = new Predicate[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                Predicate[] terms = new Predicate[i + 1];
+                for (int j = 0; j < i; j++) {
+                    terms[j] = equalTo(root, cb, keys.get(j));
+                }
+                terms[i] = greaterThan(root, cb, keys.get(i));
+                after[i] = cb.and(terms);
+            }
+            return cb.or(after);
+        };
+    }
+
+    private static Predicate equalTo(Root<Movie> root, CriteriaBuilder cb, Map.Entry<String, Object> key) {
+        return (key.getValue() == null) ? cb.isNull(root.get(key.getKey())) : cb.equal(root.get(key.getKey()), key.getValue());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate greaterThan(Root<Movie> root, CriteriaBuilder cb, Map.Entry<String, Object> key) {
+        return (key.getValue() == null)
+            ? cb.isNotNull(root.get(key.getKey()))
+            : cb.greaterThan(root.<Comparable>get(key.getKey()), (Comparable) key.getValue());
+    }
+}
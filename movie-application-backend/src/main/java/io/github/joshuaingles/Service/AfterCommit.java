@@ -0,0 +1,118 @@
+package io.github.joshuaingles.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * After Commit
+ *
+ * Holds back the in-memory side of a write until the surrounding transaction
+ * commits, and drops it on rollback. Each owner collects what it has pending in
+ * one list per transaction, bound to the transaction under the owner itself, and
+ * applies the list in a single call once the transaction has committed. Outside
+ * a transaction the items are applied straight away.
+ *
+ * While an owner has items pending, isPending(owner) is true on the writing
+ * thread, which is how that transaction's own reads know to bypass whatever the
+ * owner serves from memory.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Run
+     *
+     * Runs the write once the current transaction commits.
+     *
+     * @param owner Object the write belongs to
+     * @param write Runnable
+     */
+    static void run(Object owner, Runnable write) {
+        defer(owner, List.of(write), writes -> writes.forEach(Runnable::run));
+    }
+
+    /**
+     * Defer
+     *
+     * Adds the items to the owner's pending list and hands the whole list to
+     * onCommit once the current transaction commits. onCommit is registered with
+     * the first items of a transaction; later calls in it only add to the list.
+     *
+     * @param owner Object the items belong to
+     * @param items Collection<? extends T> nothing is registered when empty
+     * @param onCommit Consumer<List<T>>
+     */
+    static <T> void defer(Object owner, Collection<? extends T> items, Consumer<List<T>> onCommit) {
+        defer(owner, items, onCommit, null, null);
+    }
+
+    /**
+     * Defer
+     *
+     * As above, with hooks around the commit for owners that must order their
+     * commits, run once per transaction.
+     *
+     * @param owner Object the items belong to
+     * @param items Collection<? extends T> nothing is registered when empty
+     * @param onCommit Consumer<List<T>>
+     * @param beforeCommit Runnable run just before the transaction commits, null for none
+     * @param afterCompletion Runnable run once it completes either way, after onCommit, null for none
+     */
+    static <T> void defer(Object owner, Collection<? extends T> items, Consumer<List<T>> onCommit,
+            Runnable beforeCommit, Runnable afterCompletion) {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.accept(new ArrayList<T>(items));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<T> pending = (List<T>) TransactionSynchronizationManager.getResource(owner);
+        if (pending == null) {
+            List<T> bound = new ArrayList<T>();
+            pending = bound;
+            TransactionSynchronizationManager.bindResource(owner, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (beforeCommit != null) {
+                        beforeCommit.run();
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            onCommit.accept(bound);
+                        }
+                    } finally {
+                        if (afterCompletion != null) {
+                            afterCompletion.run();
+                        }
+                    }
+                }
+            });
+        }
+        pending.addAll(items);
+    }
+
+    /**
+     * Is Pending
+     *
+     * @param owner Object
+     * @return boolean true when the current transaction has items waiting on its commit for the owner
+     */
+    static boolean isPending(Object owner) {
+        return TransactionSynchronizationManager.hasResource(owner);
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.joshuaingles.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import io.github.joshuaingles.Config.CacheConfig;
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Cache
+ *
+ * Caches getMovie results by id in the CacheConfig.MOVIE_CACHE cache, misses
+ * included.
+ *
+ * Loads do not run under the cache's entry lock, see MovieService.getMovie, so a
+ * load can read a Movie before a write commits and only reach the cache once the
+ * write has evicted it. As in MovieFilterCache, each id has a generation that a
+ * committed write moves on before it evicts the id. A load reads the generation
+ * first and does not cache its result once it has moved, and checks again after
+ * the put, evicting the entry if the write landed in between.
+ *
+ * Generations are kept in a fixed number of stripes rather than one per id, so
+ * arbitrary ids cost no memory. Two ids sharing a stripe only means a load of
+ * one that raced a write to the other is not cached.
+ *
+ * Writes take effect once their transaction commits, and until then that
+ * transaction's own reads bypass the cache. The in-flight getMovie loads of the
+ * written ids are detached from the MovieReadCoalescer at the same time.
+ */
+@Component
+public class MovieCache {
+
+    private static final int STRIPES = 1024;
+
+    private final Cache cache;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final MovieReadCoalescer movieReadCoalescer;
+
+    public MovieCache(CacheManager cacheManager, MovieReadCoalescer movieReadCoalescer) {
+        this.cache = cacheManager.getCache(CacheConfig.MOVIE_CACHE);
+        this.movieReadCoalescer = movieReadCoalescer;
+    }
+
+    /**
+     * Get
+     *
+     * Returns the cached Movie for the id, or runs the loader, or joins a
+     * concurrent run of it, and caches what it returns.
+     *
+     * @param id Long
+     * @param loader Supplier<Optional<Movie>> run on a miss
+     * @return Optional<Movie>
+     */
+    Optional<Movie> get(Long id, Supplier<Optional<Movie>> loader) {
+        // A transaction with uncommitted writes reads its own rows, which must not be cached
+        if (AfterCommit.isPending(this)) {
+            return loader.get();
+        }
+        Cache.ValueWrapper cached = cache.get(id);
+        if (cached != null) {
+            return Optional.ofNullable((Movie) cached.get());
+        }
+        int stripe = stripe(id);
+        long seen = generations.get(stripe);
+        Optional<Movie> loaded = movieReadCoalescer.load(MovieReadCoalescer.GET_MOVIE, id, loader);
+        if (generations.get(stripe) == seen) {
+            cache.putIfAbsent(id, loaded.orElse(null));
+            if (generations.get(stripe) != seen) {
+                cache.evictIfPresent(id);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Get If Present
+     *
+     * @param id Long
+     * @return Cache.ValueWrapper null when the id is not cached, wrapping null for a cached miss
+     */
+    Cache.ValueWrapper getIfPresent(Long id) {
+        return AfterCommit.isPending(this) ? null : cache.get(id);
+    }
+
+    /**
+     * Invalidate All
+     *
+     * Evicts the given ids. Inside a transaction this happens once it commits,
+     * and not at all on rollback.
+     *
+     * @param ids Collection<Long>
+     */
+    public void invalidateAll(Collection<Long> ids) {
+        AfterCommit.defer(this, ids, this::evict);
+    }
+
+    private void evict(List<Long> ids) {
+        // Generations first: a load that checks after its put either sees them moved or is evicted below
+        for (Long id : ids) {
+            generations.incrementAndGet(stripe(id));
+        }
+        for (Long id : ids) {
+            cache.evictIfPresent(id);
+        }
+        movieReadCoalescer.invalidate(MovieReadCoalescer.GET_MOVIE, ids);
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.joshuaingles.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.MovieChange;
+import io.github.joshuaingles.Dto.MovieChanges;
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Change Log
+ *
+ * Bounded, in-memory log of committed Movie writes, so consumers can follow the
+ * catalog by reading what changed since the sequence they last saw instead of
+ * re-reading all of it.
+ *
+ * The MovieService write methods record their Movies, and the changes are
+ * numbered and appended once the write commits, so sequences follow commit order
+ * and never expose a write that rolled back. Only the latest
+ * movies.changes.capacity changes are kept. Sequences start again, under a new
+ * epoch, when the application restarts.
+ */
+@Component
+public class MovieChangeLog {
+    private final String epoch = UUID.randomUUID().toString();
+    private final MovieChange[] changes;
+    // Waiting long-polls, completed by the next append
+    private final List<CompletableFuture<Void>> waiters = new ArrayList<CompletableFuture<Void>>();
+    private long latest;
+    // Held from just before a recording transaction commits until its changes are appended. A
+    // transaction writing the same Movie cannot commit before the row locks are released at that
+    // commit, so changes to one Movie are appended in the order they committed.
+    private final ReentrantLock commitOrder = new ReentrantLock();
+
+    public MovieChangeLog(MovieProperties movieProperties) {
+        this.changes = new MovieChange[movieProperties.getChanges().getCapacity()];
+    }
+
+    /**
+     * Record
+     *
+     * Appends a change per Movie once the surrounding transaction commits. The
+     * Movies are copied straight away, so they may change afterwards.
+     *
+     * @param type MovieChange.Type CREATED or UPDATED
+     * @param movies Collection<Movie>
+     */
+    void record(MovieChange.Type type, Collection<Movie> movies) {
+        List<MovieChange> pending = new ArrayList<MovieChange>(movies.size());
+        for (Movie movie : movies) {
+            // Unset genres were stored as none
+            Movie copy = Movie.builder().id(movie.getId()).title(movie.getTitle()).releaseYear(movie.getReleaseYear())
+                .genres((movie.getGenres() == null) ? List.of() : movie.getGenres()).version(movie.getVersion()).build();
+            pending.add(new MovieChange(0, type, movie.getId(), copy));
+        }
+        afterCommit(pending);
+    }
+
+    /**
+     * Record Deleted
+     *
+     * Appends a delete per id once the surrounding transaction commits.
+     *
+     * @param ids Collection<Long>
+     */
+    void recordDeleted(Collection<Long> ids) {
+        afterCommit(ids.stream().map(id -> new MovieChange(0, MovieChange.Type.DELETED, id, null)).toList());
+    }
+
+    /**
+     * Read
+     *
+     * Up to limit changes after since, oldest first.
+     *
+     * @param since long last sequence the caller has seen, 0 for the start of the log
+     * @param limit int
+     * @return MovieChanges, or null when changes after since are no longer kept or since was never issued
+     */
+    synchronized MovieChanges read(long since, int limit) {
+        long oldest = Math.max(1, latest - changes.length + 1);
+        if (since > latest || since < oldest - 1) {
+            return null;
+        }
+        int count = (int) Math.min(limit, latest - since);
+        List<MovieChange> result = new ArrayList<MovieChange>(count);
+        for (long sequence = since + 1; sequence <= since + count; sequence++) {
+            result.add(changes[slot(sequence)]);
+        }
+        return new MovieChanges(epoch, result, since + count);
+    }
+
+    /**
+     * Head
+     *
+     * Where the log stands: its epoch and latest sequence, without any changes.
+     *
+     * @return MovieChanges
+     */
+    synchronized MovieChanges head() {
+        return new MovieChanges(epoch, List.of(), latest);
+    }
+
+    /**
+     * Changed After
+     *
+     * Completes once a change after since has been appended, straight away if
+     * one already has. Cancel it to stop waiting.
+     *
+     * @param since long
+     * @return CompletableFuture<Void>
+     */
+    synchronized CompletableFuture<Void> changedAfter(long since) {
+        if (latest > since) {
+            return CompletableFuture.completedFuture(null);
+        }
+        waiters.removeIf(CompletableFuture::isDone);
+        CompletableFuture<Void> waiter = new CompletableFuture<Void>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * Holding Commits
+     *
+     * Runs work while no recording transaction can commit. The MovieService write
+     * methods record their changes last, so a committed write has applied every
+     * other in-memory update by the time it lets go of the commit order, and work
+     * sees each write either fully applied or not yet committed.
+     *
+     * @param work Supplier<T>
+     * @return T what work returned
+     */
+    <T> T holdingCommits(Supplier<T> work) {
+        commitOrder.lock();
+        try {
+            return work.get();
+        } finally {
+            commitOrder.unlock();
+        }
+    }
+
+    String epoch() {
+        return epoch;
+    }
+
+    private void append(List<MovieChange> pending) {
+        List<CompletableFuture<Void>> woken;
+        synchronized (this) {
+            for (MovieChange change : pending) {
+                latest++;
+                changes[slot(latest)] = new MovieChange(latest, change.type(), change.id(), change.movie());
+            }
+            woken = new ArrayList<CompletableFuture<Void>>(waiters);
+            waiters.clear();
+        }
+        // Outside the lock: a woken long-poll reads the log straight away
+        woken.forEach(waiter -> waiter.complete(null));
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % changes.length);
+    }
+
+    private void afterCommit(List<MovieChange> pending) {
+        AfterCommit.defer(this, pending, this::append, commitOrder::lock, () -> {
+            if (commitOrder.isHeldByCurrentThread()) {
+                commitOrder.unlock();
+            }
+        });
+    }
+}
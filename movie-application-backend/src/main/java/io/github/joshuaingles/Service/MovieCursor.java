@@ -0,0 +1,84 @@
+package io.github.joshuaingles.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Cursor
+ *
+ * Opaque keyset cursor: the sort it was issued for plus the sort value and id
+ * of the last Movie on the page, base64url encoded. A releaseYear value is the
+ * stored year, 0 for a Movie without one.
+ *
+ * A null value, a Movie without a title, leaves the value segment out entirely,
+ * so it stays distinct from an empty title; the two sort apart, nulls first.
+ */
+record MovieCursor(MovieSort sort, String value, Long id) {
+
+    private static final String VERSION = "v1";
+
+    static MovieCursor after(MovieSort sort, Movie movie) {
+        String value = switch (sort) {
+            case ID -> null;
+            case TITLE -> movie.getTitle();
+            case RELEASE_YEAR -> String.valueOf(movie.getReleaseYearNumber());
+        };
+        return new MovieCursor(sort, value, movie.getId());
+    }
+
+    String encode() {
+        String raw = VERSION + ":" + sort.name() + ":" + id + (value == null ? "" : ":" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode
+     *
+     * @param cursor String
+     * @param sort MovieSort the cursor must have been issued for
+     * @return MovieCursor
+     * @throws IllegalArgumentException for malformed cursors or a sort mismatch
+     */
+    static MovieCursor decode(String cursor, MovieSort sort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        // The value is last so it may itself contain ':', and absent when null
+        String[] parts = raw.split(":", 4);
+        if (parts.length < 3 || !VERSION.equals(parts[0])) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (!sort.name().equals(parts[1])) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort");
+        }
+        String value = (parts.length == 4 && sort != MovieSort.ID) ? parts[3] : null;
+        try {
+            if (sort == MovieSort.RELEASE_YEAR) {
+                Short.parseShort(value);
+            }
+            return new MovieCursor(sort, value, Long.valueOf(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    KeysetScrollPosition toScrollPosition() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (sort != MovieSort.ID) {
+            keys.put(sort.getProperty(), (sort == MovieSort.RELEASE_YEAR) ? (Object) Short.valueOf(value) : value);
+        }
+        keys.put("id", id);
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.joshuaingles.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import io.github.joshuaingles.Dto.MovieFacets;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.MovieFacetCount;
+
+/**
+ * Movie Facet Counts
+ *
+ * In-memory Movie counts per releaseYear, per genre and per releaseYear and genre
+ * pair, so facets are read in time proportional to the number of distinct values
+ * rather than the size of the catalog.
+ *
+ * The MovieService write methods pass the Movies they remove and add, and the
+ * counts move by that difference once the write commits. MovieIndexLoader resets
+ * them from the MovieRepository aggregate queries at startup, as does
+ * MovieService.reconcileFacets on demand, both holding back commits meanwhile so
+ * no write is lost or counted twice.
+ */
+@Component
+public class MovieFacetCounts {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long total;
+    private Map<String, Long> byYear = new HashMap<String, Long>();
+    private Map<String, Long> byGenre = new HashMap<String, Long>();
+    private Map<String, Map<String, Long>> genresByYear = new HashMap<String, Map<String, Long>>();
+    private Map<String, Map<String, Long>> yearsByGenre = new HashMap<String, Map<String, Long>>();
+
+    /**
+     * Update
+     *
+     * Moves the counts from the removed Movies to the added ones once the surrounding
+     * transaction commits. An update passes the Movie as it was and as it is now.
+     * The releaseYear and genres are read straight away, so the Movies may change
+     * afterwards.
+     *
+     * @param removed Collection<Movie>
+     * @param added Collection<Movie>
+     */
+    void update(Collection<Movie> removed, Collection<Movie> added) {
+        List<Delta> deltas = new ArrayList<Delta>(removed.size() + added.size());
+        removed.forEach(movie -> deltas.add(Delta.of(movie, -1)));
+        added.forEach(movie -> deltas.add(Delta.of(movie, 1)));
+        if (!deltas.isEmpty()) {
+            AfterCommit.run(this, () -> apply(deltas));
+        }
+    }
+
+    /**
+     * Facets
+     *
+     * Counts for the Movies matching the filter.
+     *
+     * @param filter MovieFilter
+     * @return MovieFacets
+     */
+    MovieFacets facets(MovieFilter filter) {
+        String year = filter.releaseYear();
+        String genre = filter.genre();
+        lock.readLock().lock();
+        try {
+            if (year == null && genre == null) {
+                return new MovieFacets(total, new TreeMap<String, Long>(byYear), new TreeMap<String, Long>(byGenre));
+            }
+            if (genre == null) {
+                long count = byYear.getOrDefault(year, 0L);
+                return new MovieFacets(count, single(year, count),
+                    new TreeMap<String, Long>(genresByYear.getOrDefault(year, Map.of())));
+            }
+            if (year == null) {
+                long count = byGenre.getOrDefault(genre, 0L);
+                return new MovieFacets(count, new TreeMap<String, Long>(yearsByGenre.getOrDefault(genre, Map.of())),
+                    single(genre, count));
+            }
+            long count = genresByYear.getOrDefault(year, Map.of()).getOrDefault(genre, 0L);
+            return new MovieFacets(count, single(year, count), single(genre, count));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reset
+     *
+     * Replaces every count with the aggregates read from H2.
+     *
+     * @param yearCounts List<MovieFacetCount> Movies per releaseYear
+     * @param pairCounts List<MovieFacetCount> Movies per releaseYear and genre
+     * @return boolean whether the counts had drifted from the aggregates
+     */
+    boolean reset(List<MovieFacetCount> yearCounts, List<MovieFacetCount> pairCounts) {
+        long freshTotal = 0;
+        Map<String, Long> freshByYear = new HashMap<String, Long>();
+        Map<String, Long> freshByGenre = new HashMap<String, Long>();
+        Map<String, Map<String, Long>> freshGenresByYear = new HashMap<String, Map<String, Long>>();
+        Map<String, Map<String, Long>> freshYearsByGenre = new HashMap<String, Map<String, Long>>();
+        for (MovieFacetCount count : yearCounts) {
+            freshTotal += count.movies();
+            if (count.releaseYear() != null) {
+                freshByYear.put(count.releaseYear(), count.movies());
+            }
+        }
+        for (MovieFacetCount count : pairCounts) {
+            freshByGenre.merge(count.genre(), count.movies(), Long::sum);
+            if (count.releaseYear() != null) {
+                freshGenresByYear.computeIfAbsent(count.releaseYear(), key -> new HashMap<String, Long>())
+                    .put(count.genre(), count.movies());
+                freshYearsByGenre.computeIfAbsent(count.genre(), key -> new HashMap<String, Long>())
+                    .put(count.releaseYear(), count.movies());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            boolean drifted = total != freshTotal || !byYear.equals(freshByYear) || !byGenre.equals(freshByGenre)
+                || !genresByYear.equals(freshGenresByYear);
+            total = freshTotal;
+            byYear = freshByYear;
+            byGenre = freshByGenre;
+            genresByYear = freshGenresByYear;
+            yearsByGenre = freshYearsByGenre;
+            return drifted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(List<Delta> deltas) {
+        lock.writeLock().lock();
+        try {
+            for (Delta delta : deltas) {
+                total += delta.sign();
+                if (delta.releaseYear() != null) {
+                    adjust(byYear, delta.releaseYear(), delta.sign());
+                }
+                for (String genre : delta.genres()) {
+                    adjust(byGenre, genre, delta.sign());
+                    if (delta.releaseYear() != null) {
+                        adjust(genresByYear, delta.releaseYear(), genre, delta.sign());
+                        adjust(yearsByGenre, genre, delta.releaseYear(), delta.sign());
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A count reaching zero is removed, so values whose last Movie left drop out
+    private static void adjust(Map<String, Long> counts, String key, int sign) {
+        counts.compute(key, (k, count) -> {
+            long next = ((count == null) ? 0 : count) + sign;
+            return (next == 0) ? null : next;
+        });
+    }
+
+    private static void adjust(Map<String, Map<String, Long>> counts, String outer, String inner, int sign) {
+        Map<String, Long> nested = counts.computeIfAbsent(outer, key -> new HashMap<String, Long>());
+        adjust(nested, inner, sign);
+        if (nested.isEmpty()) {
+            counts.remove(outer);
+        }
+    }
+
+    private static Map<String, Long> single(String key, long count) {
+        return (count == 0) ? Map.of() : Map.of(key, count);
+    }
+
+    // One Movie entering (+1) or leaving (-1) the counts; a genre listed twice counts once
+    private record Delta(String releaseYear, Set<String> genres, int sign) {
+
+        static Delta of(Movie movie, int sign) {
+            Set<String> genres = new LinkedHashSet<String>();
+            if (movie.getGenres() != null) {
+                movie.getGenres().stream().filter(genre -> genre != null).forEach(genres::add);
+            }
+            // Counted by the stored year, as reset's aggregate queries count them
+            return new Delta(Movie.formatYear(movie.getReleaseYearNumber()), genres, sign);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.joshuaingles.Service;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Filter
+ *
+ * Normalized getMovies filter: values are stripped and a blank value means no
+ * filter. Case is kept, since the filters compare case-sensitively.
+ *
+ * The year is kept in the form Movies report it, so "0999", "999" and " 999"
+ * share one cache entry, tag and facet key. Every year that is not a year
+ * becomes INVALID_YEAR, which matches nothing.
+ */
+record MovieFilter(String releaseYear, String genre) {
+
+    /**
+     * Release year of a filter whose year is not a year. No Movie has it.
+     */
+    static final String INVALID_YEAR = "invalid";
+
+    static MovieFilter of(String releaseYear, String genre) {
+        return new MovieFilter(year(normalize(releaseYear)), normalize(genre));
+    }
+
+    private static String normalize(String value) {
+        return (value == null || value.isBlank()) ? null : value.strip();
+    }
+
+    private static String year(String releaseYear) {
+        if (releaseYear == null) {
+            return null;
+        }
+        try {
+            return Movie.formatYear(Movie.parseYear(releaseYear));
+        } catch (IllegalArgumentException e) {
+            return INVALID_YEAR;
+        }
+    }
+}
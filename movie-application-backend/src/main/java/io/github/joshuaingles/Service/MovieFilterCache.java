@@ -0,0 +1,189 @@
+package io.github.joshuaingles.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Filter Cache
+ *
+ * Caches getMovies results per filter tuple (releaseYear, genre), with the page
+ * requested as part of the key.
+ *
+ * Each tuple has a generation counter. An entry remembers the generation it was
+ * loaded under and is ignored once that moves on, so a write only has to bump the
+ * tuples it can change: the unfiltered tuple, its year, each of its genres and
+ * each year/genre pair. Entries for other tuples stay warm. A counter is only
+ * created by the first write to bump it; until then the tuple is at generation
+ * 0, so filters asked for but never written hold no memory outside the cache.
+ *
+ * Generations are read before the query runs and bumped after the write commits,
+ * so a load that raced a write is always discarded on the next read. Until then
+ * the writing transaction bypasses the cache, so it still sees its own writes.
+ *
+ * The generations also tag getMovies responses for conditional GETs, which is why
+ * they are kept even when caching is disabled.
+ *
+ * Concurrent misses for the same filter, page and generation share one load
+ * through the MovieReadCoalescer, so a read arriving after a write commits never
+ * joins a load that started before it.
+ */
+@Component
+public class MovieFilterCache {
+
+    // Rough heap cost of a cached Movie and of a String, used to keep the cache within its budget.
+    // A Movie is a 40 byte object, with compressed oops, plus its boxed id.
+    private static final int MOVIE_OVERHEAD_BYTES = 56;
+    private static final int STRING_OVERHEAD_BYTES = 48;
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final boolean enabled;
+    private final Cache<Key, Entry> entries;
+    private final ConcurrentMap<MovieFilter, AtomicLong> generations = new ConcurrentHashMap<MovieFilter, AtomicLong>();
+    // Tags from before a restart must not match, though the generations start again from zero
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final MovieReadCoalescer movieReadCoalescer;
+
+    public MovieFilterCache(MovieProperties movieProperties, MovieReadCoalescer movieReadCoalescer) {
+        this.movieReadCoalescer = movieReadCoalescer;
+        MovieProperties.FilterCache config = movieProperties.getFilterCache();
+        this.enabled = config.isEnabled();
+        this.entries = Caffeine.newBuilder()
+            .maximumWeight(config.getMemoryBudget().toBytes())
+            .weigher((Key key, Entry entry) -> entry.weight())
+            .expireAfterWrite(config.getTtl())
+            .build();
+    }
+
+    /**
+     * Get
+     *
+     * Returns the cached result for the filter and page, or runs the loader, or
+     * joins a concurrent run of it, and caches what it returns.
+     *
+     * @param filter MovieFilter
+     * @param page Object describing the requested page, null for the unpaged list
+     * @param loader Supplier<MoviePage> run on a miss, returning Movies with their genres initialized
+     * @return MoviePage
+     */
+    MoviePage get(MovieFilter filter, Object page, Supplier<MoviePage> loader) {
+        // A transaction with uncommitted writes reads its own rows, which must not be cached
+        if (AfterCommit.isPending(this)) {
+            return loader.get();
+        }
+        long seen = generation(filter);
+        Key key = new Key(filter, page);
+        if (enabled) {
+            Entry entry = entries.getIfPresent(key);
+            if (entry != null && entry.generation() == seen) {
+                return entry.page();
+            }
+        }
+        MoviePage loaded = movieReadCoalescer.load(MovieReadCoalescer.GET_MOVIES, new Flight(key, seen), loader);
+        if (enabled && generation(filter) == seen) {
+            entries.put(key, new Entry(seen, loaded, weigh(loaded)));
+        }
+        return loaded;
+    }
+
+    /**
+     * Tag
+     *
+     * Opaque version of the results for a filter. It moves on whenever a committed
+     * write could change them, so it is read before the results are loaded.
+     *
+     * @param filter MovieFilter
+     * @return String
+     */
+    String tag(MovieFilter filter) {
+        return epoch + "-" + generation(filter);
+    }
+
+    // Reads never add a generation, so filters that no write has touched cost nothing however many are asked for
+    private long generation(MovieFilter filter) {
+        AtomicLong generation = generations.get(filter);
+        return (generation == null) ? 0 : generation.get();
+    }
+
+    /**
+     * Invalidate
+     *
+     * Marks every cached result that could include the given Movie as stale. Inside
+     * a transaction this happens once it commits, and not at all on rollback.
+     *
+     * @param movie Movie as stored before or after the write
+     */
+    public void invalidate(Movie movie) {
+        invalidateAll(List.of(movie));
+    }
+
+    /**
+     * Invalidate All
+     *
+     * Marks every cached result that could include any of the given Movies as stale.
+     *
+     * @param movies Collection<Movie>
+     */
+    public void invalidateAll(Collection<Movie> movies) {
+        Set<MovieFilter> affected = new HashSet<MovieFilter>();
+        for (Movie movie : movies) {
+            // Filters match the stored year, not the releaseYear text
+            addAffectedFilters(affected, Movie.formatYear(movie.getReleaseYearNumber()), movie.getGenres());
+        }
+        AfterCommit.defer(this, affected, this::bump);
+    }
+
+    private static void addAffectedFilters(Set<MovieFilter> affected, String releaseYear, Collection<String> genres) {
+        affected.add(MovieFilter.of(null, null));
+        affected.add(MovieFilter.of(releaseYear, null));
+        if (genres != null) {
+            for (String genre : genres) {
+                affected.add(MovieFilter.of(null, genre));
+                affected.add(MovieFilter.of(releaseYear, genre));
+            }
+        }
+    }
+
+    private void bump(List<MovieFilter> affected) {
+        // A filter is bumped once per commit, however many of its Movies were written
+        for (MovieFilter filter : new HashSet<MovieFilter>(affected)) {
+            generations.computeIfAbsent(filter, f -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static int weigh(MoviePage page) {
+        long bytes = ENTRY_OVERHEAD_BYTES + sizeOf(page.nextCursor());
+        for (Movie movie : page.movies()) {
+            // The genre lists of loaded Movies, and their names, are shared
+            bytes += MOVIE_OVERHEAD_BYTES + sizeOf(movie.getTitle()) + sizeOf(movie.getReleaseYearText());
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOf(String value) {
+        return (value == null) ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+
+    private record Key(MovieFilter filter, Object page) {
+    }
+
+    private record Flight(Key key, long generation) {
+    }
+
+    private record Entry(long generation, MoviePage page, int weight) {
+    }
+}
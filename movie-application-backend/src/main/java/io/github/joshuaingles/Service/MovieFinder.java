@@ -0,0 +1,90 @@
+package io.github.joshuaingles.Service;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Repository.MovieRepository;
+
+/**
+ * Runs the getMovies queries against the H2 DB when neither the MovieIndex nor the
+ * MovieFilterCache can answer them, and title searches while the MovieSearchIndex
+ * is off or still building.
+ *
+ * Kept apart from MovieService so only these misses open a read-only transaction.
+ */
+@Component
+public class MovieFinder {
+    private MovieRepository movieRepository;
+    private GenreDictionary genreDictionary;
+
+    public MovieFinder(MovieRepository movieRepository, GenreDictionary genreDictionary) {
+        this.movieRepository = movieRepository;
+        this.genreDictionary = genreDictionary;
+    }
+
+    @Transactional(readOnly = true)
+    List<Movie> findMovies(MovieFilter filter) {
+        List<Movie> result;
+
+        // Filters by both releaseYear and genre
+        if(filter.releaseYear() != null && filter.genre() != null) {
+            result = movieRepository.findByReleaseYearAndGenreId(filter.releaseYear(), genreDictionary.idOf(filter.genre()));
+        }
+        // Filters by releaseYear 
+        else if(filter.releaseYear() != null && filter.genre() == null) {
+            result = movieRepository.findByReleaseYear(filter.releaseYear());
+        } 
+        // Filters by genre
+        else if(filter.releaseYear() == null && filter.genre() != null) {
+            result = movieRepository.findByGenreId(genreDictionary.idOf(filter.genre()));
+        } 
+        // Returns all movies
+        else {
+            result = movieRepository.findAll();
+        }
+
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    MoviePage findPage(MovieFilter filter, MovieSort sort, String cursor, int pageSize) {
+        String releaseYear = filter.releaseYear();
+        String genre = filter.genre();
+        Integer genreId = genreDictionary.idOf(genre);
+        ScrollPosition position = (cursor == null) 
+            ? ScrollPosition.keyset() : MovieCursor.decode(cursor, sort).toScrollPosition();
+        Sort order = sort.toSort();
+        Window<Movie> window;
+        if(releaseYear != null && genre != null) {
+            window = movieRepository.findByReleaseYearAndGenreId(releaseYear, genreId, position, order, Limit.of(pageSize));
+        }
+        else if(releaseYear != null) {
+            window = movieRepository.findByReleaseYear(releaseYear, position, order, Limit.of(pageSize));
+        }
+        else if(genre != null) {
+            window = movieRepository.findByGenreId(genreId, position, order, Limit.of(pageSize));
+        }
+        else {
+            window = movieRepository.findAllBy(position, order, Limit.of(pageSize));
+        }
+        List<Movie> movies = window.getContent();
+        String nextCursor = (window.hasNext() && !movies.isEmpty()) 
+            ? MovieCursor.after(sort, movies.get(movies.size() - 1)).encode() : null;
+        return new MoviePage(movies, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    List<Movie> findByTitle(String query, int limit) {
+        return movieRepository.findByTitleContainingIgnoreCase(query, Sort.by("title", "id"), Limit.of(limit));
+    }
+}
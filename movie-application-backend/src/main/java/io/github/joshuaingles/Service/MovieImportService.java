@@ -0,0 +1,110 @@
+package io.github.joshuaingles.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.ImportSummary;
+import io.github.joshuaingles.Entity.Movie;
+
+@Service
+public class MovieImportService {
+    private static final Logger log = LoggerFactory.getLogger(MovieImportService.class);
+
+    private MovieService movieService;
+    private ObjectMapper objectMapper;
+    private MovieProperties movieProperties;
+
+    public MovieImportService(MovieService movieService, ObjectMapper objectMapper, MovieProperties movieProperties) {
+        this.movieService = movieService;
+        this.objectMapper = objectMapper;
+        this.movieProperties = movieProperties;
+    }
+
+    /**
+     * Import Movies
+     *
+     * Incrementally parses a catalog from the provided input, either a JSON array
+     * of Movies or newline-delimited JSON, and creates the Movies in chunks of
+     * movies.bulk.import-chunk-size. Each chunk is committed in its own transaction,
+     * so heap use is bounded by the chunk size rather than the size of the input.
+     * 
+     * Records that cannot be mapped to a Movie, and chunks that fail to commit, are
+     * counted as failed without stopping the import. Malformed JSON stops parsing.
+     *
+     * @param input InputStream
+     * @return ImportSummary
+     * @throws IOException if the input cannot be read
+     */
+    public ImportSummary importMovies(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        int chunkSize = movieProperties.getBulk().getImportChunkSize();
+        Counts counts = new Counts();
+        List<Movie> chunk = new ArrayList<Movie>(chunkSize);
+        boolean complete = true;
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                // Each record is buffered as a small tree so a bad record can be skipped cleanly
+                JsonNode record = parser.readValueAsTree();
+                try {
+                    chunk.add(objectMapper.treeToValue(record, Movie.class));
+                } catch (JsonProcessingException e) {
+                    counts.failed++;
+                }
+                if (chunk.size() == chunkSize) {
+                    commit(chunk, counts);
+                    chunk.clear();
+                }
+                token = parser.nextToken();
+            }
+        } catch (StreamReadException e) {
+            log.warn("Stopped catalog import on malformed JSON: {}", e.getOriginalMessage());
+            counts.failed++;
+            complete = false;
+        }
+        commit(chunk, counts);
+
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        long processed = counts.inserted + counts.duplicates + counts.failed;
+        return new ImportSummary(counts.inserted, counts.duplicates, counts.failed,
+            elapsedNanos / 1_000_000, processed * 1_000_000_000d / elapsedNanos, complete);
+    }
+
+    private void commit(List<Movie> chunk, Counts counts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            int inserted = movieService.createMovies(chunk).size();
+            counts.inserted += inserted;
+            counts.duplicates += chunk.size() - inserted;
+        } catch (DataAccessException e) {
+            log.warn("Failed to commit import chunk of {} movies", chunk.size(), e);
+            counts.failed += chunk.size();
+        }
+    }
+
+    private static class Counts {
+        long inserted;
+        long duplicates;
+        long failed;
+    }
+}
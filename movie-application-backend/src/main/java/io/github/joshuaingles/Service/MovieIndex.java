@@ -0,0 +1,460 @@
+package io.github.joshuaingles.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.MovieSpecifications;
+
+/**
+ * Movie Index
+ *
+ * In-memory copy of the catalog that answers getMovies without going to H2.
+ *
+ * Movie fields are held column by column in arrays indexed by id, releaseYear as
+ * the movie row stores it: a short, plus the text given when the short does not
+ * reproduce it. Genre lists are held as read, shared between Movies with the same
+ * genres. Each releaseYear and each genre maps to a RoaringBitmap of the ids
+ * carrying it, so a filter is a bitmap intersection and an id-ordered page is a
+ * walk of the smallest bitmap that stops once the page is full. The years are
+ * kept in order, and every Movie in title order, so pages sorted by either are
+ * walks too, from the cursor on.
+ *
+ * Enabled by movies.index.enabled. MovieIndexLoader fills it at startup and the
+ * MovieService write methods keep it in step, applying changes once they commit.
+ * Every change carries the Movie version, so one that arrives after a newer change
+ * to the same Movie, from a racing transaction or the startup load, is dropped.
+ */
+@Component
+public class MovieIndex {
+    private static final Logger log = LoggerFactory.getLogger(MovieIndex.class);
+    private static final int INITIAL_CAPACITY = 1024;
+    // Version left behind by a delete; ids are never reused, so nothing may bring the Movie back
+    private static final long REMOVED = Long.MAX_VALUE;
+
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    // In year order, with 0 for Movies without a year; filters never ask for 0
+    private final NavigableMap<Short, RoaringBitmap> byYear = new TreeMap<Short, RoaringBitmap>();
+    private final NavigableSet<TitleKey> byTitle = new TreeSet<TitleKey>();
+    private final Map<String, RoaringBitmap> byGenre = new HashMap<String, RoaringBitmap>();
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private short[] years = new short[INITIAL_CAPACITY];
+    private String[] yearTexts = new String[INITIAL_CAPACITY];
+    @SuppressWarnings("unchecked")
+    private List<String>[] genres = new List[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+
+    private boolean broken;
+    private volatile boolean serving;
+
+    public MovieIndex(MovieProperties movieProperties) {
+        this.enabled = movieProperties.getIndex().isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Is Serving
+     *
+     * True once the index is built and can answer getMovies. A transaction with
+     * writes the index has not applied yet is sent to H2, so it sees its own rows.
+     *
+     * @return boolean
+     */
+    public boolean isServing() {
+        return serving && !AfterCommit.isPending(this);
+    }
+
+    /**
+     * Begin Build
+     *
+     * Empties the index and stops it serving until finishBuild is called.
+     */
+    public void beginBuild() {
+        lock.writeLock().lock();
+        try {
+            serving = false;
+            broken = false;
+            all.clear();
+            byYear.clear();
+            byTitle.clear();
+            byGenre.clear();
+            Arrays.fill(titles, null);
+            Arrays.fill(years, (short) 0);
+            Arrays.fill(yearTexts, null);
+            Arrays.fill(genres, null);
+            Arrays.fill(versions, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load
+     *
+     * Adds a Movie read by the startup build, unless a write has already replaced it.
+     *
+     * @param movie Movie
+     */
+    public void load(Movie movie) {
+        lock.writeLock().lock();
+        try {
+            put(movie);
+        } catch (IllegalStateException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finish Build
+     *
+     * Starts serving, unless an id did not fit the index during the build.
+     */
+    public void finishBuild() {
+        lock.writeLock().lock();
+        try {
+            serving = !broken;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index
+     *
+     * Adds or replaces the given Movies once the current transaction commits.
+     *
+     * @param movies Collection<Movie> as saved
+     */
+    public void index(Collection<Movie> movies) {
+        if (!enabled || movies.isEmpty()) {
+            return;
+        }
+        List<Movie> snapshot = new ArrayList<Movie>(movies.size());
+        for (Movie movie : movies) {
+            snapshot.add(Movie.builder().id(movie.getId()).title(movie.getTitle()).releaseYear(movie.getReleaseYear())
+                .genres(movie.getGenres()).version(movie.getVersion()).build());
+        }
+        AfterCommit.run(this, () -> write(snapshot, List.of()));
+    }
+
+    /**
+     * Remove
+     *
+     * Removes the given Movies once the current transaction commits.
+     *
+     * @param ids Collection<Long>
+     */
+    public void remove(Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        List<Long> snapshot = List.copyOf(ids);
+        AfterCommit.run(this, () -> write(List.of(), snapshot));
+    }
+
+    /**
+     * Find
+     *
+     * Every Movie matching the filter, in id order.
+     *
+     * @param filter MovieFilter
+     * @return List<Movie>
+     */
+    List<Movie> find(MovieFilter filter) {
+        lock.readLock().lock();
+        try {
+            List<Movie> result = new ArrayList<Movie>();
+            IntIterator ids = matching(filter).getIntIterator();
+            while (ids.hasNext()) {
+                result.add(movie(ids.next()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Page
+     *
+     * One keyset page, ordered and split exactly like the JPA path.
+     *
+     * @param filter MovieFilter
+     * @param sort MovieSort
+     * @param cursor MovieCursor, null for the first page
+     * @param limit int
+     * @return MoviePage
+     */
+    MoviePage page(MovieFilter filter, MovieSort sort, MovieCursor cursor, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Integer> ids = (sort == MovieSort.ID) ? pageById(filter, cursor, limit + 1) : pageByValue(filter, sort, cursor, limit + 1);
+            boolean hasNext = ids.size() > limit;
+            List<Movie> movies = new ArrayList<Movie>(Math.min(ids.size(), limit));
+            for (int i = 0; i < ids.size() && i < limit; i++) {
+                movies.add(movie(ids.get(i)));
+            }
+            String nextCursor = (hasNext && !movies.isEmpty())
+                ? MovieCursor.after(sort, movies.get(movies.size() - 1)).encode() : null;
+            return new MoviePage(movies, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Walks the most selective bitmap from the cursor and probes the other, so the cost follows the page size
+    private List<Integer> pageById(MovieFilter filter, MovieCursor cursor, int count) {
+        RoaringBitmap year = (filter.releaseYear() == null) ? all : yearBitmap(filter.releaseYear());
+        RoaringBitmap genre = (filter.genre() == null) ? all : byGenre.getOrDefault(filter.genre(), new RoaringBitmap());
+        RoaringBitmap walk = (year.getCardinality() <= genre.getCardinality()) ? year : genre;
+        RoaringBitmap probe = (walk == year) ? genre : year;
+        PeekableIntIterator ids = walk.getIntIterator();
+        if (cursor != null) {
+            if (cursor.id() >= Integer.MAX_VALUE) {
+                return List.of();
+            }
+            ids.advanceIfNeeded((int) (cursor.id() + 1));
+        }
+        List<Integer> result = new ArrayList<Integer>(count);
+        while (ids.hasNext() && result.size() < count) {
+            int id = ids.next();
+            if (probe == all || probe.contains(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    // Walks the sort order from the cursor and probes the filter, so the cost follows the page size. A filter
+    // so sparse that the walk would pass more Movies than it matches keeps its smallest matches in a heap instead.
+    private List<Integer> pageByValue(MovieFilter filter, MovieSort sort, MovieCursor cursor, int count) {
+        RoaringBitmap matches = matching(filter);
+        long matched = matches.getLongCardinality();
+        if (matched * matched < count * all.getLongCardinality()) {
+            return pageByValueHeap(matches, sort, cursor, count);
+        }
+        // Ids past the int range sort after every indexed Movie
+        int afterId = (cursor == null) ? -1 : (int) Math.max(-1, Math.min(cursor.id(), Integer.MAX_VALUE));
+        List<Integer> result = new ArrayList<Integer>(count);
+        if (sort == MovieSort.TITLE) {
+            Iterator<TitleKey> keys = (cursor == null) ? byTitle.iterator()
+                : byTitle.tailSet(new TitleKey(cursor.value(), afterId), false).iterator();
+            while (keys.hasNext() && result.size() < count) {
+                int id = keys.next().id();
+                if (matches == all || matches.contains(id)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+        short cursorYear = (cursor == null) ? Short.MIN_VALUE : Short.parseShort(cursor.value());
+        NavigableMap<Short, RoaringBitmap> years = byYear.tailMap(cursorYear, true);
+        if (filter.releaseYear() != null) {
+            Short year = MovieSpecifications.filterYear(filter.releaseYear());
+            years = (year == null || year < cursorYear) ? new TreeMap<Short, RoaringBitmap>() : years.subMap(year, true, year, true);
+        }
+        for (Map.Entry<Short, RoaringBitmap> entry : years.entrySet()) {
+            PeekableIntIterator ids = entry.getValue().getIntIterator();
+            if (cursor != null && entry.getKey() == cursorYear) {
+                if (afterId == Integer.MAX_VALUE) {
+                    continue;
+                }
+                ids.advanceIfNeeded(afterId + 1);
+            }
+            while (ids.hasNext() && result.size() < count) {
+                int id = ids.next();
+                if (matches == all || matches.contains(id)) {
+                    result.add(id);
+                }
+            }
+            if (result.size() == count) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    // Keeps the smallest matches after the cursor in a bounded max-heap
+    private List<Integer> pageByValueHeap(RoaringBitmap matches, MovieSort sort, MovieCursor cursor, int count) {
+        // Years order numerically, as the smallint column does, with 0 for no year first
+        Comparator<Integer> byValue = (sort == MovieSort.TITLE)
+            ? Comparator.<Integer, String>comparing(id -> titles[id], Comparator.nullsFirst(Comparator.naturalOrder()))
+            : Comparator.<Integer>comparingInt(id -> years[id]);
+        Comparator<Integer> order = byValue.thenComparing(Comparator.naturalOrder());
+        PriorityQueue<Integer> smallest = new PriorityQueue<Integer>(count + 1, order.reversed());
+        int cursorYear = (cursor != null && sort == MovieSort.RELEASE_YEAR) ? Short.parseShort(cursor.value()) : 0;
+        IntIterator ids = matches.getIntIterator();
+        while (ids.hasNext()) {
+            int id = ids.next();
+            if (cursor != null) {
+                int compared = (sort == MovieSort.TITLE)
+                    ? Comparator.nullsFirst(Comparator.<String>naturalOrder()).compare(titles[id], cursor.value())
+                    : Integer.compare(years[id], cursorYear);
+                if (compared < 0 || (compared == 0 && id <= cursor.id())) {
+                    continue;
+                }
+            }
+            smallest.add(id);
+            if (smallest.size() > count) {
+                smallest.poll();
+            }
+        }
+        List<Integer> result = new ArrayList<Integer>(smallest);
+        result.sort(order);
+        return result;
+    }
+
+    private RoaringBitmap matching(MovieFilter filter) {
+        RoaringBitmap year = (filter.releaseYear() == null) ? null : yearBitmap(filter.releaseYear());
+        RoaringBitmap genre = (filter.genre() == null) ? null : byGenre.getOrDefault(filter.genre(), new RoaringBitmap());
+        if (year != null && genre != null) {
+            return RoaringBitmap.and(year, genre);
+        }
+        return (year != null) ? year : (genre != null) ? genre : all;
+    }
+
+    // A filter year that is not a year matches nothing, as on the JPA path
+    private RoaringBitmap yearBitmap(String releaseYear) {
+        Short year = MovieSpecifications.filterYear(releaseYear);
+        return (year == null) ? new RoaringBitmap() : byYear.getOrDefault(year, new RoaringBitmap());
+    }
+
+    private Movie movie(int id) {
+        return Movie.builder().id((long) id).title(titles[id]).releaseYearNumber(years[id]).releaseYearText(yearTexts[id])
+            .genres(genres[id]).version(versions[id]).build();
+    }
+
+    private void write(List<Movie> movies, List<Long> removedIds) {
+        lock.writeLock().lock();
+        try {
+            for (Movie movie : movies) {
+                put(movie);
+            }
+            for (Long removedId : removedIds) {
+                int id = slot(removedId);
+                unlink(id);
+                ensureCapacity(id);
+                versions[id] = REMOVED;
+            }
+        } catch (IllegalStateException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The catalog outgrew int ids; stop answering rather than serve a partial index
+    private void disable(IllegalStateException cause) {
+        if (!broken) {
+            log.warn("Movie index disabled, getMovies falls back to H2: {}", cause.getMessage());
+        }
+        broken = true;
+        serving = false;
+    }
+
+    private void put(Movie movie) {
+        int id = slot(movie.getId());
+        ensureCapacity(id);
+        if (versions[id] > movie.getVersion()) {
+            return;
+        }
+        unlink(id);
+        short year = movie.getReleaseYearNumber();
+        // Unset genres were stored as none
+        List<String> movieGenres = (movie.getGenres() == null) ? List.of() : movie.getGenres();
+        titles[id] = movie.getTitle();
+        years[id] = year;
+        yearTexts[id] = movie.getReleaseYearText();
+        genres[id] = movieGenres;
+        versions[id] = movie.getVersion();
+        all.add(id);
+        byYear.computeIfAbsent(year, y -> new RoaringBitmap()).add(id);
+        byTitle.add(new TitleKey(movie.getTitle(), id));
+        for (String genre : movieGenres) {
+            if (genre != null) {
+                byGenre.computeIfAbsent(genre, g -> new RoaringBitmap()).add(id);
+            }
+        }
+    }
+
+    private void unlink(int id) {
+        if (!all.contains(id)) {
+            return;
+        }
+        all.remove(id);
+        byYear.get(years[id]).remove(id);
+        byTitle.remove(new TitleKey(titles[id], id));
+        for (String genre : genres[id]) {
+            if (genre != null) {
+                byGenre.get(genre).remove(id);
+            }
+        }
+        titles[id] = null;
+        years[id] = 0;
+        yearTexts[id] = null;
+        genres[id] = null;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < titles.length) {
+            return;
+        }
+        int capacity = (int) Math.min(Math.max((long) id + 1, titles.length * 2L), Integer.MAX_VALUE);
+        titles = Arrays.copyOf(titles, capacity);
+        years = Arrays.copyOf(years, capacity);
+        yearTexts = Arrays.copyOf(yearTexts, capacity);
+        genres = Arrays.copyOf(genres, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+    }
+
+    // Title order as the JPA path sorts it: nulls first, then by id
+    private record TitleKey(String title, int id) implements Comparable<TitleKey> {
+        private static final Comparator<TitleKey> ORDER = Comparator
+            .comparing(TitleKey::title, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparingInt(TitleKey::id);
+
+        @Override
+        public int compareTo(TitleKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static int slot(Long id) {
+        if (id == null || id < 0 || id >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("movie id " + id + " does not fit the index");
+        }
+        return id.intValue();
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.joshuaingles.Service;
+
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Index Loader
+ *
+ * Fills the enabled in-memory indexes, MovieIndex and MovieSearchIndex, from H2
+ * once the application has started. Both are filled by the same pass over the
+ * catalog. Until it finishes, getMovies and searchMovies keep using H2.
+ *
+ * The MovieFacetCounts are reconciled against H2 at the same point.
+ */
+@Component
+public class MovieIndexLoader {
+    private static final Logger log = LoggerFactory.getLogger(MovieIndexLoader.class);
+
+    private MovieIndex movieIndex;
+    private MovieSearchIndex movieSearchIndex;
+    private MovieService movieService;
+
+    public MovieIndexLoader(MovieIndex movieIndex, MovieSearchIndex movieSearchIndex, MovieService movieService) {
+        this.movieIndex = movieIndex;
+        this.movieSearchIndex = movieSearchIndex;
+        this.movieService = movieService;
+    }
+
+    /**
+     * Build
+     *
+     * Streams every Movie into freshly emptied indexes. Writes that commit while
+     * the build runs are applied as usual; whichever of a write and a streamed row
+     * carries the newer version wins.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void build() {
+        if (!movieIndex.isEnabled() && !movieSearchIndex.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Consumer<Movie> load = movie -> { };
+        if (movieIndex.isEnabled()) {
+            movieIndex.beginBuild();
+            load = load.andThen(movieIndex::load);
+        }
+        if (movieSearchIndex.isEnabled()) {
+            movieSearchIndex.beginBuild();
+            load = load.andThen(movieSearchIndex::load);
+        }
+        long count = movieService.exportMovies(load);
+        if (movieIndex.isEnabled()) {
+            movieIndex.finishBuild();
+        }
+        if (movieSearchIndex.isEnabled()) {
+            movieSearchIndex.finishBuild();
+        }
+        log.info("Movie indexes built: {} movies in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Reconcile Facets
+     *
+     * Counts the catalog with aggregate queries, so the facet counters start from H2
+     * rather than from zero.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void reconcileFacets() {
+        long start = System.nanoTime();
+        movieService.reconcileFacets();
+        log.info("Movie facets counted in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,163 @@
+package io.github.joshuaingles.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Movie Read Coalescer
+ *
+ * Single-flight for MovieRepository reads: concurrent identical reads share one
+ * in-flight load and its result instead of each running the same query, which
+ * matters when a trending title sends hundreds of requests for one id at once.
+ *
+ * The first caller for a key runs the load on its own thread. Callers arriving
+ * while it runs wait up to movies.coalesce.max-wait for its result, or its
+ * exception, and run the load themselves once that has passed. A caller inside a
+ * transaction always runs its own load, as it may need to see its own writes.
+ *
+ * A load that started before a write committed may have missed it, so callers
+ * arriving after the commit must not join it. getMovies puts the filter's
+ * generation in its key for that; getMovie flights are invalidated by id. The
+ * caches in front decide whether a detached load's result is kept, and neither
+ * keeps one that a committed write has overtaken.
+ *
+ * Published per read, tagged read=getMovie or read=getMovies:
+ *
+ * movie.reads.loads              loads actually run
+ * movie.reads.coalesced          reads answered by another caller's load
+ * movie.reads.coalesce.timeouts  reads that stopped waiting and ran their own load
+ */
+@Component
+public class MovieReadCoalescer {
+    static final String GET_MOVIE = "getMovie";
+    static final String GET_MOVIES = "getMovies";
+
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Flight, CompletableFuture<Object>> flights = new ConcurrentHashMap<Flight, CompletableFuture<Object>>();
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<String, Meters>();
+
+    public MovieReadCoalescer(MovieProperties movieProperties, MeterRegistry meterRegistry) {
+        MovieProperties.Coalesce config = movieProperties.getCoalesce();
+        this.enabled = config.isEnabled();
+        this.maxWaitNanos = config.getMaxWait().toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Load
+     *
+     * Returns the result of the in-flight load for the same read and key, or runs
+     * the loader when there is none.
+     *
+     * @param read String GET_MOVIE or GET_MOVIES
+     * @param key Object identifying the result, with equals and hashCode
+     * @param loader Supplier<T> returning a result safe to share between threads
+     * @return T
+     */
+    <T> T load(String read, Object key, Supplier<T> loader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        Meters counters = meters(read);
+        Flight flight = new Flight(read, key);
+        CompletableFuture<Object> own = new CompletableFuture<Object>();
+        CompletableFuture<Object> leading = flights.putIfAbsent(flight, own);
+        if (leading != null) {
+            return follow(leading, counters, loader);
+        }
+        counters.loads().increment();
+        try {
+            T loaded = loader.get();
+            own.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Only if still registered: an invalidation may have detached it already
+            flights.remove(flight, own);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T follow(CompletableFuture<Object> leading, Meters counters, Supplier<T> loader) {
+        try {
+            T shared = (T) leading.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            counters.coalesced().increment();
+            return shared;
+        } catch (TimeoutException e) {
+            counters.timeouts().increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The load failed for everyone waiting on it; retrying it from each of them would be the stampede again
+            counters.coalesced().increment();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        counters.loads().increment();
+        return loader.get();
+    }
+
+    /**
+     * Invalidate
+     *
+     * Detaches the in-flight loads for the given keys, so later callers start a
+     * fresh load instead of joining one that may predate a write. Callers already
+     * waiting still get its result. Inside a transaction this happens once it
+     * commits, and not at all on rollback.
+     *
+     * @param read String GET_MOVIE or GET_MOVIES
+     * @param keys Collection<?>
+     */
+    void invalidate(String read, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Set<Flight> affected = new HashSet<Flight>();
+        keys.forEach(key -> affected.add(new Flight(read, key)));
+        AfterCommit.defer(this, affected, this::detach);
+    }
+
+    private void detach(List<Flight> affected) {
+        affected.forEach(flights::remove);
+    }
+
+    private Meters meters(String read) {
+        return meters.computeIfAbsent(read, r -> new Meters(
+            Counter.builder("movie.reads.loads").description("Repository loads run").tag("read", r).register(meterRegistry),
+            Counter.builder("movie.reads.coalesced").description("Reads answered by a concurrent identical read's load")
+                .tag("read", r).register(meterRegistry),
+            Counter.builder("movie.reads.coalesce.timeouts").description("Reads that stopped waiting and ran their own load")
+                .tag("read", r).register(meterRegistry)));
+    }
+
+    private record Flight(String read, Object key) {
+    }
+
+    private record Meters(Counter loads, Counter coalesced, Counter timeouts) {
+    }
+}
@@ -0,0 +1,390 @@
+package io.github.joshuaingles.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Entity.Movie;
+
+/**
+ * Movie Search Index
+ *
+ * In-memory trigram index over Movie titles that answers searchMovies.
+ *
+ * Titles are normalized (lower case, accents and punctuation dropped, one space
+ * between words) and prefixed with two spaces. Every run of three characters maps
+ * to a RoaringBitmap of the ids containing it, so a gram opening with two spaces
+ * marks the start of a title and one opening with a single space the start of a
+ * word. Prefix and substring candidates are then a bitmap intersection, checked
+ * against the stored title before they are ranked.
+ *
+ * Enabled by movies.search.enabled. MovieIndexLoader fills it at startup and the
+ * MovieService write methods keep it in step, applying changes once they commit.
+ * As in MovieIndex, a change older than the version already held is dropped.
+ */
+@Component
+public class MovieSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(MovieSearchIndex.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int INITIAL_CAPACITY = 1024;
+    // Checking a few hundred titles directly is cheaper than intersecting the remaining grams
+    private static final int VERIFY_DIRECTLY = 256;
+    // Below this many candidates one pass and a sort beats walking them length by length
+    private static final int SCAN_DIRECTLY = 4096;
+    private static final long REMOVED = Long.MAX_VALUE;
+
+    /**
+     * How a title matches the query, best first. The padding is put in front of the
+     * query to find its candidates, so short queries only reach the tiers whose
+     * padded query still holds a whole gram.
+     */
+    private enum Tier {
+        TITLE_PREFIX("  "),
+        WORD_PREFIX(" "),
+        SUBSTRING("");
+
+        private final String padding;
+
+        Tier(String padding) {
+            this.padding = padding;
+        }
+    }
+
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, RoaringBitmap> grams = new HashMap<Long, RoaringBitmap>();
+    // Ids by normalized title length, so the shortest matches can be found without ranking every candidate
+    private RoaringBitmap[] byLength = new RoaringBitmap[0];
+    // Normalized titles indexed by id; null where there is no movie
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+
+    private boolean broken;
+    private volatile boolean serving;
+
+    public MovieSearchIndex(MovieProperties movieProperties) {
+        this.enabled = movieProperties.getSearch().isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Is Serving
+     *
+     * True once the index is built and can answer searchMovies. A transaction with
+     * writes the index has not applied yet is sent to H2, so it sees its own rows.
+     *
+     * @return boolean
+     */
+    public boolean isServing() {
+        return serving && !AfterCommit.isPending(this);
+    }
+
+    /**
+     * Begin Build
+     *
+     * Empties the index and stops it serving until finishBuild is called.
+     */
+    public void beginBuild() {
+        lock.writeLock().lock();
+        try {
+            serving = false;
+            broken = false;
+            grams.clear();
+            byLength = new RoaringBitmap[0];
+            Arrays.fill(titles, null);
+            Arrays.fill(versions, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Load
+     *
+     * Adds a Movie read by the startup build, unless a write has already replaced it.
+     *
+     * @param movie Movie
+     */
+    public void load(Movie movie) {
+        lock.writeLock().lock();
+        try {
+            put(slot(movie.getId()), movie.getTitle(), movie.getVersion());
+        } catch (IllegalStateException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finish Build
+     *
+     * Starts serving, unless an id did not fit the index during the build.
+     */
+    public void finishBuild() {
+        lock.writeLock().lock();
+        try {
+            serving = !broken;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index
+     *
+     * Adds or replaces the titles of the given Movies once the current transaction commits.
+     *
+     * @param movies Collection<Movie> as saved
+     */
+    public void index(Collection<Movie> movies) {
+        if (!enabled || movies.isEmpty()) {
+            return;
+        }
+        List<Movie> snapshot = new ArrayList<Movie>(movies.size());
+        for (Movie movie : movies) {
+            snapshot.add(Movie.builder().id(movie.getId()).title(movie.getTitle()).version(movie.getVersion()).build());
+        }
+        AfterCommit.run(this, () -> write(snapshot, List.of()));
+    }
+
+    /**
+     * Remove
+     *
+     * Removes the given Movies once the current transaction commits.
+     *
+     * @param ids Collection<Long>
+     */
+    public void remove(Collection<Long> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        List<Long> snapshot = List.copyOf(ids);
+        AfterCommit.run(this, () -> write(List.of(), snapshot));
+    }
+
+    /**
+     * Search
+     *
+     * Ids of the titles matching the query, best first. Titles starting with the
+     * query come first, then titles with a word starting with it, then any other
+     * title containing it. Within each, shorter titles come first and then older
+     * ones. A one-character query only matches title starts and a two-character
+     * query only word starts.
+     *
+     * @param query String
+     * @param limit int
+     * @return List<Long>
+     */
+    List<Long> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Long> result = new ArrayList<Long>(limit);
+            for (Tier tier : Tier.values()) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                collect(tier, normalized, limit - result.size(), result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Adds up to count matches of one tier, shortest title first and then lowest id
+    private void collect(Tier tier, String query, int count, List<Long> result) {
+        String padded = tier.padding + query;
+        if (padded.length() < 3) {
+            return;
+        }
+        String wordQuery = " " + query;
+        RoaringBitmap candidates = candidates(padded);
+        if (candidates.getCardinality() <= SCAN_DIRECTLY) {
+            List<Integer> matches = new ArrayList<Integer>();
+            candidates.forEach((int id) -> {
+                if (tier(titles[id], query, wordQuery) == tier) {
+                    matches.add(id);
+                }
+            });
+            matches.sort(Comparator.<Integer>comparingInt(id -> titles[id].length()).thenComparing(Comparator.naturalOrder()));
+            matches.stream().limit(count).forEach(id -> result.add(id.longValue()));
+            return;
+        }
+        // Many candidates: walk them one title length at a time and stop once the tier is full
+        int remaining = count;
+        for (int length = query.length(); length < byLength.length && remaining > 0; length++) {
+            if (byLength[length] == null || !RoaringBitmap.intersects(candidates, byLength[length])) {
+                continue;
+            }
+            IntIterator ids = RoaringBitmap.and(candidates, byLength[length]).getIntIterator();
+            while (ids.hasNext() && remaining > 0) {
+                int id = ids.next();
+                if (tier(titles[id], query, wordQuery) == tier) {
+                    result.add((long) id);
+                    remaining--;
+                }
+            }
+        }
+    }
+
+    private static Tier tier(String title, String query, String wordQuery) {
+        if (title.startsWith(query)) {
+            return Tier.TITLE_PREFIX;
+        }
+        if (title.contains(wordQuery)) {
+            return Tier.WORD_PREFIX;
+        }
+        return title.contains(query) ? Tier.SUBSTRING : null;
+    }
+
+    // Ids holding every gram of the padded query, a superset of the real matches
+    private RoaringBitmap candidates(String padded) {
+        List<RoaringBitmap> postings = new ArrayList<RoaringBitmap>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            RoaringBitmap posting = grams.get(gram(padded, i));
+            if (posting == null) {
+                return new RoaringBitmap();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap result = postings.get(0).clone();
+        for (int i = 1; i < postings.size() && result.getCardinality() > VERIFY_DIRECTLY; i++) {
+            result.and(postings.get(i));
+        }
+        return result;
+    }
+
+    private void write(List<Movie> movies, List<Long> removedIds) {
+        lock.writeLock().lock();
+        try {
+            for (Movie movie : movies) {
+                put(slot(movie.getId()), movie.getTitle(), movie.getVersion());
+            }
+            for (Long removedId : removedIds) {
+                int id = slot(removedId);
+                unlink(id);
+                ensureCapacity(id);
+                versions[id] = REMOVED;
+            }
+        } catch (IllegalStateException e) {
+            disable(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The catalog outgrew int ids; stop answering rather than serve a partial index
+    private void disable(IllegalStateException cause) {
+        if (!broken) {
+            log.warn("Movie search index disabled, searchMovies falls back to H2: {}", cause.getMessage());
+        }
+        broken = true;
+        serving = false;
+    }
+
+    private void put(int id, String title, long version) {
+        ensureCapacity(id);
+        if (versions[id] > version) {
+            return;
+        }
+        unlink(id);
+        String normalized = normalize(title);
+        titles[id] = normalized;
+        versions[id] = version;
+        if (normalized.length() >= byLength.length) {
+            byLength = Arrays.copyOf(byLength, normalized.length() + 1);
+        }
+        if (byLength[normalized.length()] == null) {
+            byLength[normalized.length()] = new RoaringBitmap();
+        }
+        byLength[normalized.length()].add(id);
+        String padded = "  " + normalized;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.computeIfAbsent(gram(padded, i), g -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    private void unlink(int id) {
+        if (id >= titles.length || titles[id] == null) {
+            return;
+        }
+        String padded = "  " + titles[id];
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            long gram = gram(padded, i);
+            RoaringBitmap posting = grams.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+        byLength[titles[id].length()].remove(id);
+        titles[id] = null;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < titles.length) {
+            return;
+        }
+        int capacity = (int) Math.min(Math.max((long) id + 1, titles.length * 2L), Integer.MAX_VALUE);
+        titles = Arrays.copyOf(titles, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+    }
+
+    // Three UTF-16 chars packed into one key
+    private static long gram(String value, int start) {
+        return ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            } else if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        int end = normalized.length();
+        return (end > 0 && normalized.charAt(end - 1) == ' ') ? normalized.substring(0, end - 1) : normalized.toString();
+    }
+
+    private static int slot(Long id) {
+        if (id == null || id < 0 || id >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("movie id " + id + " does not fit the index");
+        }
+        return id.intValue();
+    }
+}
@@ -1,20 +1,79 @@
 package io.github.joshuaingles.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.cache.Cache;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.BulkResult;
+import io.github.joshuaingles.Dto.MovieBatch;
+import io.github.joshuaingles.Dto.MovieChange;
+import io.github.joshuaingles.Dto.MovieChanges;
+import io.github.joshuaingles.Dto.MovieFacets;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
 import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Repository.MovieFacetCount;
+import io.github.joshuaingles.Repository.MovieKey;
 import io.github.joshuaingles.Repository.MovieRepository;
+import io.micrometer.core.annotation.Timed;
 
 @Service
+// Every public method is timed as movie.service, tagged with its method name
+@Timed(value = "movie.service", histogram = true)
 public class MovieService {
     private MovieRepository movieRepository;
+    private MovieProperties movieProperties;
+    private MovieCache movieCache;
+    private MovieFilterCache movieFilterCache;
+    private MovieIndex movieIndex;
+    private MovieSearchIndex movieSearchIndex;
+    private MovieFinder movieFinder;
+    private MovieFacetCounts movieFacetCounts;
+    private MovieChangeLog movieChangeLog;
+    private GenreDictionary genreDictionary;
+    // Reconcile's snapshot, begun only once MovieChangeLog holds back commits
+    private TransactionTemplate snapshotRead;
 
-    public MovieService(MovieRepository movieRepository) {
+    public MovieService(MovieRepository movieRepository, MovieProperties movieProperties, MovieCache movieCache,
+            MovieFilterCache movieFilterCache, MovieIndex movieIndex, MovieSearchIndex movieSearchIndex, MovieFinder movieFinder,
+            MovieFacetCounts movieFacetCounts, MovieChangeLog movieChangeLog, GenreDictionary genreDictionary,
+            PlatformTransactionManager transactionManager) {
         this.movieRepository = movieRepository;
+        this.movieProperties = movieProperties;
+        this.movieCache = movieCache;
+        this.movieFilterCache = movieFilterCache;
+        this.movieIndex = movieIndex;
+        this.movieSearchIndex = movieSearchIndex;
+        this.movieFinder = movieFinder;
+        this.movieFacetCounts = movieFacetCounts;
+        this.movieChangeLog = movieChangeLog;
+        this.genreDictionary = genreDictionary;
+        this.snapshotRead = new TransactionTemplate(transactionManager);
+        this.snapshotRead.setReadOnly(true);
+        this.snapshotRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
     }
 
     /**
@@ -22,39 +81,88 @@ public class MovieService {
      *
      * Uses the provided movie param to save a Movie entry to the H2 DB.
      *
+     * The insert is not preceded by a lookup: the unique natural key constraint
+     * rejects a duplicate, including one committed concurrently, and that
+     * rejection is reported as null. Genres new to the GenreDictionary are
+     * interned first, in the same transaction; a duplicate still leaves them in.
+     *
+     * Evicts the new id from the Movie cache, which may hold a miss for it.
+     *
      * @param movie Movie
-     * @return Movie
+     * @return Movie, or null when a Movie with the same title and releaseYear exists
      */
+    @Transactional
     public Movie createMovie(Movie movie) {
-        Boolean movieExists = (movieRepository.findByTitleAndReleaseYear(movie.getTitle(), movie.getReleaseYear()) != null) 
-            ? true : false;
-
-        if (movieExists) {
+        // Ids are always assigned by the sequence, never by the client
+        movie.setId(null);
+        internGenres(List.of(movie));
+        List<Movie> inserted = movieRepository.insertAll(List.of(movie));
+        if (inserted.isEmpty()) {
             return null;
-        } else {
-            return movieRepository.save(movie);
         }
+        Movie saved = inserted.get(0);
+        movieFilterCache.invalidate(saved);
+        movieIndex.index(List.of(saved));
+        movieSearchIndex.index(List.of(saved));
+        movieFacetCounts.update(List.of(), List.of(saved));
+        movieChangeLog.record(MovieChange.Type.CREATED, List.of(saved));
+        movieCache.invalidateAll(List.of(saved.getId()));
+        return saved;
     }
 
     /**
      * Create Movies
      *
      * Uses the provided movies to save several Movie entries to the H2 DB.
+     * 
+     * Movies are processed in chunks: each chunk is deduplicated against the DB
+     * with a single query and inserted with batched statements. Duplicates within
+     * the payload itself are dropped, keeping the first occurrence. Untitled Movies
+     * in the same year are duplicates of each other, as under the unique constraint.
+     * A duplicate committed by a concurrent create after the lookup is skipped by
+     * insertAll, rather than failing the whole request.
      *
      * @param movies List<Movie>
-     * @return Movie
+     * @return List<Movie>
      */
+    @Transactional
     public List<Movie> createMovies(List<Movie> movies) {
-            List<Movie> result = new ArrayList<Movie>();
-            for(Movie movie : movies) {
-                Boolean movieExists = (movieRepository.findByTitleAndReleaseYear(movie.getTitle(), movie.getReleaseYear()) != null) 
-                    ? true : false;
-
-                if (!movieExists) {
-                    result.add(movieRepository.save(movie));
+        List<Movie> result = new ArrayList<Movie>();
+        Set<MovieKey> seen = new HashSet<MovieKey>();
+        int chunkSize = movieProperties.getBulk().getChunkSize();
+        for (int from = 0; from < movies.size(); from += chunkSize) {
+            List<Movie> chunk = movies.subList(from, Math.min(from + chunkSize, movies.size()));
+            List<Movie> candidates = new ArrayList<Movie>();
+            Set<String> titles = new HashSet<String>();
+            for (Movie movie : chunk) {
+                if (seen.add(MovieKey.of(movie))) {
+                    candidates.add(movie);
+                    titles.add(movie.getTitle());
                 }
             }
-
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            Set<MovieKey> existing = new HashSet<MovieKey>(movieRepository.findByTitleIn(titles));
+            List<Movie> fresh = new ArrayList<Movie>();
+            for (Movie movie : candidates) {
+                if (!existing.contains(MovieKey.of(movie))) {
+                    // Ids are always assigned by the sequence, never by the client
+                    movie.setId(null);
+                    fresh.add(movie);
+                }
+            }
+            if (!fresh.isEmpty()) {
+                internGenres(fresh);
+                result.addAll(movieRepository.insertAll(fresh));
+            }
+        }
+        movieCache.invalidateAll(result.stream().map(Movie::getId).toList());
+        movieFilterCache.invalidateAll(result);
+        movieIndex.index(result);
+        movieSearchIndex.index(result);
+        movieFacetCounts.update(List.of(), result);
+        movieChangeLog.record(MovieChange.Type.CREATED, result);
         return result;
     }
 
@@ -62,12 +170,89 @@ public class MovieService {
      * Get Movie
      *
      * Retrieves a Movie from the H2 DB using the provided id.
+     * 
+     * Reads through the MovieCache. Misses are cached too, for movies.cache.negative-ttl.
+     * Loads do not run under Caffeine's entry lock: a writer evicting the id after its
+     * commit still holds a connection, and a load waiting on the pool under that lock
+     * would block it until the pool timed out. Concurrent misses for the same id share
+     * one findById through the MovieReadCoalescer instead, and a load that raced a
+     * write is not cached.
      *
      * @param id Long
      * @return Movie
      */
     public Optional<Movie> getMovie(Long id) {
-        return movieRepository.findById(id);
+        return movieCache.get(id, () -> movieRepository.findById(id));
+    }
+
+    /**
+     * Get Movies By Ids
+     *
+     * Retrieves the Movies for a list of ids, in the order they were requested.
+     * 
+     * Ids the Movie cache holds are answered from it. The rest are read from H2 with
+     * their genres in one query per movies.batch-get.chunk-size ids. Repeated ids are
+     * returned once, and ids with no Movie are reported in missing.
+     *
+     * @param ids List<Long>
+     * @return MovieBatch
+     * @throws IllegalArgumentException for a null id or more than movies.batch-get.max-ids ids
+     */
+    public MovieBatch getMoviesByIds(List<Long> ids) {
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
+        Set<Long> requested = new LinkedHashSet<Long>(ids);
+        MovieProperties.BatchGet batchGet = movieProperties.getBatchGet();
+        if (requested.size() > batchGet.getMaxIds()) {
+            throw new IllegalArgumentException("at most " + batchGet.getMaxIds() + " ids per request");
+        }
+
+        Map<Long, Movie> found = new HashMap<Long, Movie>();
+        List<Long> uncached = new ArrayList<Long>();
+        for (Long id : requested) {
+            Cache.ValueWrapper cached = movieCache.getIfPresent(id);
+            if (cached == null) {
+                uncached.add(id);
+            } else if (cached.get() != null) {
+                found.put(id, (Movie) cached.get());
+            }
+        }
+        for (int from = 0; from < uncached.size(); from += batchGet.getChunkSize()) {
+            List<Long> chunk = uncached.subList(from, Math.min(from + batchGet.getChunkSize(), uncached.size()));
+            movieRepository.findByIdIn(chunk).forEach(movie -> found.put(movie.getId(), movie));
+        }
+
+        List<Movie> movies = new ArrayList<Movie>(found.size());
+        List<Long> missing = new ArrayList<Long>();
+        for (Long id : requested) {
+            Movie movie = found.get(id);
+            if (movie != null) {
+                movies.add(movie);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MovieBatch(movies, missing);
+    }
+
+    /**
+     * Get Movie Version
+     *
+     * Retrieves only the version of a Movie, for answering conditional requests.
+     * 
+     * Taken from the Movie cache when it holds the id, otherwise read from H2
+     * without loading the Movie or its genres.
+     *
+     * @param id Long
+     * @return Optional<Long> empty when there is no such Movie
+     */
+    public Optional<Long> getMovieVersion(Long id) {
+        Cache.ValueWrapper cached = movieCache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.ofNullable((Movie) cached.get()).map(Movie::getVersion);
+        }
+        return movieRepository.findVersionById(id);
     }
 
     /**
@@ -75,65 +260,424 @@ public class MovieService {
      *
      * Retrieves all Movie resources from H2 DB.
      * 
-     * Can provide releaseYear and/or genre to filter results.
+     * Can provide releaseYear and/or genre to filter results. Blank filters are ignored.
+     * 
+     * Answered from the MovieIndex when it is enabled, otherwise served from the
+     * MovieFilterCache until a write touches the filter.
      *
      * @param releaseYear String
      * @param genre String
      * @return List<Movie>
      */
     public List<Movie> getMovies(String releaseYear, String genre) {
-        List<Movie> result;
+        MovieFilter filter = MovieFilter.of(releaseYear, genre);
+        if (movieIndex.isServing()) {
+            return movieIndex.find(filter);
+        }
+        return movieFilterCache.get(filter, null, () -> new MoviePage(List.copyOf(movieFinder.findMovies(filter)), null)).movies();
+    }
+
+    /**
+     * Get Movies Page
+     *
+     * Retrieves one keyset-paginated page of Movie resources from H2 DB.
+     * 
+     * Each page seeks past the cursor on (sort value, id) instead of using OFFSET,
+     * so every page costs the same regardless of how deep the client has walked.
+     * Pages come from the MovieIndex when it is enabled, otherwise from the
+     * MovieFilterCache until a write touches the filter.
+     *
+     * @param releaseYear String
+     * @param genre String
+     * @param sort MovieSort
+     * @param cursor String opaque cursor from the previous page, null for the first page
+     * @param limit Integer page size, defaults to movies.page.default-size
+     * @return MoviePage
+     * @throws IllegalArgumentException for a malformed cursor or non-positive limit
+     */
+    public MoviePage getMovies(String releaseYear, String genre, MovieSort sort, String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        MovieFilter filter = MovieFilter.of(releaseYear, genre);
+        if (movieIndex.isServing()) {
+            return movieIndex.page(filter, sort, (cursor == null) ? null : MovieCursor.decode(cursor, sort), pageSize);
+        }
+        return movieFilterCache.get(filter, new PageRequest(sort, cursor, pageSize), 
+            () -> movieFinder.findPage(filter, sort, cursor, pageSize));
+    }
 
-        // Filters by both releaseYear and genre
-        if(releaseYear != null && genre != null) {
-            result = movieRepository.findByReleaseYearAndGenresContaining(releaseYear, genre);
+    /**
+     * Get Movies Tag
+     *
+     * Opaque version of the getMovies results for a releaseYear/genre filter, the
+     * same for every sort and page. It changes once a write that could alter those
+     * results commits.
+     * 
+     * Kept in memory, so it is only meaningful to the instance that issued it.
+     *
+     * @param releaseYear String
+     * @param genre String
+     * @return String
+     */
+    public String getMoviesTag(String releaseYear, String genre) {
+        return movieFilterCache.tag(MovieFilter.of(releaseYear, genre));
+    }
+
+    /**
+     * Get Facets
+     *
+     * Counts the Movies matching a releaseYear/genre filter, split by releaseYear and
+     * by genre. Blank filters are ignored.
+     * 
+     * Answered from the MovieFacetCounts the write methods keep up to date, so the
+     * cost follows the number of distinct releaseYears and genres, not the catalog.
+     *
+     * @param releaseYear String
+     * @param genre String
+     * @return MovieFacets
+     */
+    public MovieFacets getFacets(String releaseYear, String genre) {
+        return movieFacetCounts.facets(MovieFilter.of(releaseYear, genre));
+    }
+
+    /**
+     * Reconcile Facets
+     *
+     * Recounts the facets with two aggregate queries over H2 and replaces the
+     * in-memory counts with the result.
+     * 
+     * Both queries run in one repeatable-read transaction, so they count the same
+     * snapshot of the catalog. That transaction begins, and the counts are replaced,
+     * while the MovieChangeLog holds back commits: a write committed before it has
+     * already moved the in-memory counts and is in the snapshot, and one committed
+     * after it moves the recounted ones, so no write is lost or counted twice.
+     * Writes wait for the two queries before they can commit.
+     *
+     * @return boolean whether the in-memory counts had drifted from H2
+     */
+    public boolean reconcileFacets() {
+        return movieChangeLog.holdingCommits(() -> snapshotRead.execute(status -> {
+            List<MovieFacetCount> yearCounts = movieRepository.countByReleaseYear();
+            List<MovieFacetCount> pairCounts = movieRepository.countByReleaseYearAndGenre();
+            return movieFacetCounts.reset(yearCounts, pairCounts);
+        }));
+    }
+
+    /**
+     * Get Changes
+     *
+     * Reads the committed writes after a sequence from the MovieChangeLog, oldest
+     * first, so a consumer that has seen everything up to since catches up with
+     * work proportional to what changed.
+     *
+     * @param epoch String epoch the caller's sequence belongs to, null to skip the check
+     * @param since long last sequence the caller has seen, 0 to start from the beginning
+     * @param limit Integer number of changes, defaults to movies.changes.default-limit
+     * @return MovieChanges, or null when the log no longer holds every change after
+     *         since or belongs to another epoch, and the caller has to re-read the catalog
+     * @throws IllegalArgumentException for a negative since or non-positive limit
+     */
+    public MovieChanges getChanges(String epoch, long since, Integer limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
         }
-        // Filters by releaseYear 
-        else if(releaseYear != null && genre == null) {
-            result = movieRepository.findByReleaseYear(releaseYear);
-        } 
-        // Filters by genre
-        else if(releaseYear == null && genre != null) {
-            result = movieRepository.findByGenresContaining(genre);
-        } 
-        // Returns all movies
-        else {
-            result = movieRepository.findAll();
+        int size = resolveChangesLimit(limit);
+        if (epoch != null && !epoch.equals(movieChangeLog.epoch())) {
+            return null;
         }
+        return movieChangeLog.read(since, size);
+    }
 
+    /**
+     * Await Changes
+     *
+     * Long-poll form of getChanges: when nothing has changed after since, the
+     * result waits for the next committed write, for up to wait seconds, and is
+     * then empty.
+     *
+     * @param epoch String
+     * @param since long
+     * @param limit Integer
+     * @param wait Integer seconds to wait, capped at movies.changes.max-wait; null or 0 answers straight away
+     * @return CompletableFuture<MovieChanges> completing with what getChanges returns
+     * @throws IllegalArgumentException for a negative since or wait, or non-positive limit
+     */
+    public CompletableFuture<MovieChanges> awaitChanges(String epoch, long since, Integer limit, Integer wait) {
+        if (wait != null && wait < 0) {
+            throw new IllegalArgumentException("wait must not be negative");
+        }
+        MovieChanges changes = getChanges(epoch, since, limit);
+        long waitMillis = (wait == null) ? 0 : Math.min(wait * 1000L, movieProperties.getChanges().getMaxWait().toMillis());
+        if (changes == null || !changes.changes().isEmpty() || waitMillis == 0) {
+            return CompletableFuture.completedFuture(changes);
+        }
+        CompletableFuture<Void> changed = movieChangeLog.changedAfter(since);
+        CompletableFuture<MovieChanges> result = changed.thenApply(ignored -> getChanges(epoch, since, limit))
+            .completeOnTimeout(changes, waitMillis, TimeUnit.MILLISECONDS);
+        // A poll that timed out stops waiting
+        result.whenComplete((ignored, error) -> changed.cancel(false));
         return result;
     }
 
+    /**
+     * Get Changes Head
+     *
+     * Epoch and latest sequence of the MovieChangeLog. A consumer re-reading the
+     * catalog takes this first and follows the changes from it afterwards;
+     * replaying a change it already read is harmless.
+     *
+     * @return MovieChanges with no changes
+     */
+    public MovieChanges getChangesHead() {
+        return movieChangeLog.head();
+    }
+
+    private int resolveChangesLimit(Integer limit) {
+        if (limit == null) {
+            return movieProperties.getChanges().getDefaultLimit();
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, movieProperties.getChanges().getMaxLimit());
+    }
+
+    private record PageRequest(MovieSort sort, String cursor, int limit) {
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return movieProperties.getPage().getDefaultSize();
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, movieProperties.getPage().getMaxSize());
+    }
+
+    /**
+     * Search Movies
+     *
+     * Finds Movies whose title contains the query, ignoring case, accents and punctuation.
+     * 
+     * Answered from the MovieSearchIndex, best matches first: titles starting with the
+     * query, then titles with a word starting with it, then the rest, shorter titles
+     * first within each. While the index is off or still building, H2 runs a plain
+     * case-insensitive substring match ordered by title.
+     *
+     * @param query String
+     * @param limit Integer number of results, defaults to movies.search.default-limit
+     * @return List<Movie>
+     * @throws IllegalArgumentException for a blank query or non-positive limit
+     */
+    public List<Movie> searchMovies(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("query must not be blank");
+        }
+        int size = resolveSearchLimit(limit);
+        if (!movieSearchIndex.isServing()) {
+            return movieFinder.findByTitle(query.strip(), size);
+        }
+        List<Long> ids = movieSearchIndex.search(query, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Movie> found = new HashMap<Long, Movie>();
+        movieRepository.findByIdIn(ids).forEach(movie -> found.put(movie.getId(), movie));
+        // Back in ranked order; a movie deleted since the lookup is skipped
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    private int resolveSearchLimit(Integer limit) {
+        if (limit == null) {
+            return movieProperties.getSearch().getDefaultLimit();
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, movieProperties.getSearch().getMaxLimit());
+    }
+
+    /**
+     * Export Movies
+     *
+     * Streams every Movie in id order to the provided sink, one row at a time.
+     * 
+     * Rows are read through a JDBC cursor and the persistence context is cleared
+     * every movies.export.clear-interval rows, so memory stays flat regardless of
+     * catalog size.
+     *
+     * @param sink Consumer<Movie> invoked once per Movie, inside the read transaction
+     * @return long number of Movies exported
+     */
+    @Transactional(readOnly = true)
+    public long exportMovies(Consumer<Movie> sink) {
+        int clearInterval = movieProperties.getExport().getClearInterval();
+        long count = 0;
+        try (Stream<Movie> movies = movieRepository.streamAllBy()) {
+            for (Movie movie : (Iterable<Movie>) movies::iterator) {
+                sink.accept(movie);
+                if (++count % clearInterval == 0) {
+                    movieRepository.clearPersistenceContext();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Restore Movies
+     *
+     * Inserts Movies read back from a snapshot, keeping their ids and versions, in
+     * one transaction, movies.bulk.write-chunk-size per insert. The id sequence
+     * then continues past the highest restored id.
+     * 
+     * The caches, indexes and facet counts are not told, so this only fills an
+     * empty catalog before they are built.
+     *
+     * @param movies Iterator<Movie> consumed once, inside the transaction
+     * @return long number of Movies restored
+     */
+    @Transactional
+    public long restoreMovies(Iterator<Movie> movies) {
+        int chunkSize = movieProperties.getBulk().getWriteChunkSize();
+        List<Movie> chunk = new ArrayList<Movie>(chunkSize);
+        long count = 0;
+        long maxId = 0;
+        while (movies.hasNext()) {
+            Movie movie = movies.next();
+            chunk.add(movie);
+            maxId = Math.max(maxId, movie.getId());
+            if (chunk.size() == chunkSize || !movies.hasNext()) {
+                internGenres(chunk);
+                movieRepository.restoreAll(chunk);
+                count += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (count > 0) {
+            movieRepository.restartIdSequence(maxId);
+        }
+        return count;
+    }
+
     /**
      * Update Movie
      *
      * Updates a Movie entry by id with the fields provided in moviePatch.
      * 
+     * The title, releaseYear and genres the patch carries are written by one UPDATE
+     * that also bumps the version and returns the prior row, so there is no read
+     * first and concurrent patches cannot lose each other's columns.
+     * 
+     * Filter results for both the old and the new releaseYear and genres are invalidated.
+     * 
+     * When expectedVersions is given, the UPDATE only matches while the Movie is still
+     * at one of them.
      *
      * @param id Long
      * @param moviePatch Movie
-     * @return Movie
+     * @param expectedVersions Collection<Long> versions the caller last saw, null for an unconditional update
+     * @return Movie, or null when there is no such Movie
+     * @throws OptimisticLockingFailureException when the Movie has moved past the expected version
      */
-    public Movie updateMovie(Long id, Movie moviePatch) {
-        Optional<Movie> result = movieRepository.findById(id);
-        Movie movie = result.get();
-
-        if (result.isPresent()) {
-            if (moviePatch.getTitle() != null) {
-            movie.setTitle(moviePatch.getTitle());
+    @Transactional
+    public Movie updateMovie(Long id, Movie moviePatch, Collection<Long> expectedVersions) {
+        if (moviePatch.getTitle() == null && moviePatch.getReleaseYear() == null && moviePatch.getGenres() == null) {
+            // Nothing to write, so nothing to bump
+            Optional<Movie> current = movieRepository.findById(id);
+            if (current.isPresent() && expectedVersions != null && !expectedVersions.contains(current.get().getVersion())) {
+                throw new OptimisticLockingFailureException("Movie " + id + " is at version " + current.get().getVersion());
             }
-            if (moviePatch.getReleaseYear() != null) {
-                movie.setReleaseYear(moviePatch.getReleaseYear());
+            return current.orElse(null);
+        }
+        internGenres(List.of(moviePatch));
+        Movie before = (expectedVersions == null || !expectedVersions.isEmpty())
+            ? movieRepository.patch(id, moviePatch, expectedVersions) : null;
+        if (before == null) {
+            Optional<Long> version = movieRepository.findVersionById(id);
+            if (version.isEmpty()) {
+                return null;
             }
+            throw new OptimisticLockingFailureException("Movie " + id + " is at version " + version.get());
+        }
 
-            if (moviePatch.getGenres() != null) {
-                movie.setGenres(moviePatch.getGenres());
-            }
+        Movie saved = Movie.builder().id(id)
+            .title((moviePatch.getTitle() != null) ? moviePatch.getTitle() : before.getTitle())
+            .releaseYear((moviePatch.getReleaseYear() != null) ? moviePatch.getReleaseYear() : before.getReleaseYear())
+            .genres((moviePatch.getGenres() != null) ? moviePatch.getGenres() : before.getGenres())
+            .version(before.getVersion() + 1).build();
+        movieFilterCache.invalidateAll(List.of(before, saved));
+        movieIndex.index(List.of(saved));
+        movieSearchIndex.index(List.of(saved));
+        movieFacetCounts.update(List.of(before), List.of(saved));
+        movieChangeLog.record(MovieChange.Type.UPDATED, List.of(saved));
+        movieCache.invalidateAll(List.of(id));
+        return saved;
+    }
 
-            return movieRepository.save(movie);
-        } else {
-            return null;
+    /**
+     * Update Movies
+     *
+     * Applies a list of patches, each naming its Movie by id, in one transaction.
+     * 
+     * Works through the ids movies.bulk.write-chunk-size at a time: the current rows
+     * are read in one query and the movie rows, genres included, are updated as one
+     * JDBC batch. Each row is matched on the version that was read, so the
+     * whole update rolls back if any Movie changes underneath it.
+     *
+     * @param patches List<Movie>
+     * @return BulkResult
+     * @throws IllegalArgumentException when a patch has no id or two patches share one
+     * @throws OptimisticLockingFailureException when a Movie was updated concurrently
+     */
+    @Transactional
+    public BulkResult updateMovies(List<Movie> patches) {
+        Map<Long, Movie> patchesById = new LinkedHashMap<Long, Movie>();
+        for (Movie patch : patches) {
+            if (patch.getId() == null) {
+                throw new IllegalArgumentException("every patch needs an id");
+            }
+            if (patchesById.put(patch.getId(), patch) != null) {
+                throw new IllegalArgumentException("id " + patch.getId() + " is patched twice");
+            }
         }
+        List<Long> ids = new ArrayList<Long>(patchesById.keySet());
+        internGenres(patchesById.values());
+        List<Movie> before = new ArrayList<Movie>();
+        List<Movie> after = new ArrayList<Movie>();
+        int chunkSize = movieProperties.getBulk().getWriteChunkSize();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Movie> current = movieRepository.findByIdIn(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+            List<Movie> updated = new ArrayList<Movie>(current.size());
+            for (Movie movie : current) {
+                Movie patch = patchesById.get(movie.getId());
+                before.add(Movie.builder().releaseYear(movie.getReleaseYear()).genres(movie.getGenres()).build());
+                Movie next = Movie.builder().id(movie.getId())
+                    .title((patch.getTitle() != null) ? patch.getTitle() : movie.getTitle())
+                    .releaseYear((patch.getReleaseYear() != null) ? patch.getReleaseYear() : movie.getReleaseYear())
+                    .genres((patch.getGenres() != null) ? patch.getGenres() : movie.getGenres())
+                    .version(movie.getVersion() + 1).build();
+                updated.add(next);
+            }
+            // The rows are rewritten below, so the loaded entities would only go stale
+            movieRepository.clearPersistenceContext();
+            int[] counts = movieRepository.updateAll(updated);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new OptimisticLockingFailureException("Movie " + updated.get(i).getId() + " was updated concurrently");
+                }
+            }
+            after.addAll(updated);
+        }
+
+        movieCache.invalidateAll(after.stream().map(Movie::getId).toList());
+        movieFacetCounts.update(before, after);
+        movieChangeLog.record(MovieChange.Type.UPDATED, after);
+        before.addAll(after);
+        movieFilterCache.invalidateAll(before);
+        movieIndex.index(after);
+        movieSearchIndex.index(after);
+        return bulkResult(ids, after);
     }
 
     /**
@@ -144,7 +688,80 @@ public class MovieService {
      * @param id Long
      * @return void
      */
+    @Transactional
     public void deleteMovie(Long id) {
+        // Loaded first for the filters it leaves; deleteById reuses it from the persistence context
+        movieRepository.findById(id).ifPresent(movie -> {
+            movieFilterCache.invalidate(movie);
+            movieIndex.remove(List.of(id));
+            movieSearchIndex.remove(List.of(id));
+            movieFacetCounts.update(List.of(movie), List.of());
+            movieChangeLog.recordDeleted(List.of(id));
+            movieCache.invalidateAll(List.of(id));
+        });
         movieRepository.deleteById(id);
     }
+
+    /**
+     * Delete Movies
+     *
+     * Deletes the Movies with the given ids in one transaction.
+     * 
+     * Works through the ids movies.bulk.write-chunk-size at a time: the rows are read
+     * in one query, for the filters they leave, then the rows are removed with one
+     * delete statement.
+     *
+     * @param ids List<Long>
+     * @return BulkResult
+     * @throws IllegalArgumentException for a null id
+     */
+    @Transactional
+    public BulkResult deleteMovies(List<Long> ids) {
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
+        List<Long> requested = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+        List<Movie> deleted = new ArrayList<Movie>();
+        int chunkSize = movieProperties.getBulk().getWriteChunkSize();
+        for (int from = 0; from < requested.size(); from += chunkSize) {
+            List<Movie> found = movieRepository.findByIdIn(requested.subList(from, Math.min(from + chunkSize, requested.size())));
+            movieRepository.clearPersistenceContext();
+            movieRepository.removeAll(found.stream().map(Movie::getId).toList());
+            deleted.addAll(found);
+        }
+
+        List<Long> deletedIds = deleted.stream().map(Movie::getId).toList();
+        movieCache.invalidateAll(deletedIds);
+        movieFilterCache.invalidateAll(deleted);
+        movieIndex.remove(deletedIds);
+        movieSearchIndex.remove(deletedIds);
+        movieFacetCounts.update(deleted, List.of());
+        movieChangeLog.recordDeleted(deletedIds);
+        return bulkResult(requested, deleted);
+    }
+
+    // Gives the genres of the Movies about to be written their GenreDictionary ids, in this transaction
+    private void internGenres(Collection<Movie> movies) {
+        Set<String> genres = new HashSet<String>();
+        for (Movie movie : movies) {
+            if (movie.getGenres() != null) {
+                genres.addAll(movie.getGenres());
+            }
+        }
+        if (!genres.isEmpty()) {
+            genreDictionary.intern(genres);
+        }
+    }
+
+    // Splits the requested ids, in order, by whether a Movie was written for them
+    private static BulkResult bulkResult(List<Long> requested, List<Movie> written) {
+        Set<Long> writtenIds = new HashSet<Long>();
+        written.forEach(movie -> writtenIds.add(movie.getId()));
+        List<Long> affected = new ArrayList<Long>(writtenIds.size());
+        List<Long> missing = new ArrayList<Long>();
+        for (Long id : requested) {
+            (writtenIds.contains(id) ? affected : missing).add(id);
+        }
+        return new BulkResult(affected, missing);
+    }
 }
@@ -0,0 +1,389 @@
+package io.github.joshuaingles.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.MovieRepository;
+
+/**
+ * Movie Snapshot
+ *
+ * Saves the catalog, every Movie with its genres by name, to a binary file and restores it
+ * on the next start, so a restarted instance does not come up empty.
+ *
+ * Enabled by movies.snapshot.enabled. The restore runs before the web server
+ * starts, so no request sees a partly restored catalog, and the indexes and
+ * facet counts are built from it afterwards. A missing, truncated or corrupt
+ * file is logged and the application starts empty; an unusable file is kept
+ * aside rather than overwritten. Snapshots are written every
+ * movies.snapshot.interval and once more at shutdown, after the web server has
+ * stopped taking writes.
+ *
+ * File layout, big-endian:
+ *
+ * int    magic "MOVS"
+ * int    format version, 3
+ * per Movie:
+ *   long   id, always positive
+ *   long   version
+ *   string title
+ *   short  releaseYear, 0 for none
+ *   string releaseYear as given, null when the short reproduces it
+ *   short  number of genres, then each genre, in order, as an int: -1 for null,
+ *          the index of a genre the file has already named, or the next index,
+ *          followed by the genre as a string
+ * long   0, marking the end of the Movies
+ * long   number of Movies
+ * int    CRC32 of every byte before it
+ *
+ * A string is a short byte length, -1 for null, followed by that many UTF-8 bytes.
+ * Genres are restored by name and interned as they are, so their ids may differ
+ * from one run to the next.
+ *
+ * Older formats are still read, and the next snapshot is written in format 3.
+ * Format 2 stored genres as a mask over a dictionary of at most 63 genres listed
+ * after the header, and the releaseYear as the short alone; its Movies come back
+ * with what it kept, genres in alphabetical order. Format 1 has no dictionary,
+ * and each Movie carries its releaseYear as a string and its genres as a short
+ * count followed by that many strings; both are restored exactly as written. A
+ * format 1 file whose Movies break today's constraints, two with the same title
+ * and releaseYear, is not migrated at all: the restore fails as a whole and the
+ * file is kept aside, as for any other unusable file.
+ */
+@Component
+public class MovieSnapshot implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(MovieSnapshot.class);
+    private static final int MAGIC = 0x4D4F5653;
+    private static final int FORMAT = 3;
+    private static final int MASK_FORMAT = 2;
+    private static final int LEGACY_FORMAT = 1;
+    // Magic and format version
+    private static final int HEADER_BYTES = 8;
+    // End marker, count and checksum
+    private static final int TRAILER_BYTES = 20;
+
+    private final MovieProperties.Snapshot properties;
+    private final MovieService movieService;
+    private final MovieRepository movieRepository;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public MovieSnapshot(MovieProperties movieProperties, MovieService movieService, MovieRepository movieRepository) {
+        this.properties = movieProperties.getSnapshot();
+        this.movieService = movieService;
+        this.movieRepository = movieRepository;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        load();
+        Duration interval = properties.getInterval();
+        if (interval.isPositive()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "movie-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::writeQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (properties.isEnabled()) {
+            writeQuietly();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Starts before, and stops after, the web server (see WebServerStartStopLifecycle)
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Load
+     *
+     * Memory-maps the snapshot file, checks its checksum and restores every Movie
+     * in it. Nothing is restored into a catalog that already has Movies. A file
+     * that fails any check, or whose restore fails part way and rolls back, is
+     * renamed with a ".rejected" suffix, so the next snapshot does not overwrite it.
+     *
+     * @return long number of Movies restored, 0 when the application starts empty
+     */
+    public long load() {
+        Path path = Path.of(properties.getPath());
+        if (!Files.exists(path)) {
+            log.info("No movie snapshot at {}, starting empty", path);
+            return 0;
+        }
+        if (movieRepository.count() > 0) {
+            log.info("Catalog is not empty, movie snapshot {} not restored", path);
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            long count = restore(path);
+            log.info("Movie snapshot restored: {} movies from {} in {} ms", count, path, (System.nanoTime() - start) / 1_000_000);
+            return count;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Movie snapshot {} could not be restored, starting empty", path, e);
+            reject(path);
+            return 0;
+        }
+    }
+
+    private long restore(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Impossible snapshot size of " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+                throw new IOException("Snapshot fails its checksum");
+            }
+            int format = (buffer.getInt() == MAGIC) ? buffer.getInt() : -1;
+            if (format != FORMAT && format != MASK_FORMAT && format != LEGACY_FORMAT) {
+                throw new IOException("Snapshot is not in a known format");
+            }
+            return movieService.restoreMovies(new Reader(buffer, format));
+        }
+    }
+
+    private static void reject(Path path) {
+        Path rejected = path.resolveSibling(path.getFileName() + ".rejected");
+        try {
+            Files.move(path, rejected, StandardCopyOption.REPLACE_EXISTING);
+            log.warn("Movie snapshot moved to {}", rejected);
+        } catch (IOException e) {
+            log.warn("Movie snapshot {} could not be moved aside", path, e);
+        }
+    }
+
+    /**
+     * Write
+     *
+     * Streams the catalog into a temporary file next to the snapshot and moves it
+     * into place once complete, so a crash mid-write leaves the previous snapshot.
+     *
+     * @return long number of Movies written
+     * @throws IOException when the file cannot be written
+     */
+    public synchronized long write() throws IOException {
+        Path path = Path.of(properties.getPath()).toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.createDirectories(path.getParent());
+        long start = System.nanoTime();
+        long count;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                CheckedOutputStream checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            Map<String, Integer> named = new HashMap<String, Integer>();
+            count = movieService.exportMovies(movie -> {
+                try {
+                    writeMovie(out, movie, named);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeLong(0);
+            out.writeLong(count);
+            // Everything so far has to reach the checksum before it is read
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            // On disk before it replaces the previous snapshot
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Movie snapshot written: {} movies to {} in {} ms", count, path, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Movie snapshot could not be written, keeping the previous one", e);
+        }
+    }
+
+    // named holds the index of every genre written so far
+    private static void writeMovie(DataOutputStream out, Movie movie, Map<String, Integer> named) throws IOException {
+        out.writeLong(movie.getId());
+        out.writeLong(movie.getVersion());
+        writeString(out, movie.getTitle());
+        out.writeShort(movie.getReleaseYearNumber());
+        writeString(out, movie.getReleaseYearText());
+        List<String> genres = movie.getGenres();
+        if (genres.size() > Short.MAX_VALUE) {
+            throw new IOException("Movie " + movie.getId() + " has too many genres for a movie snapshot");
+        }
+        out.writeShort(genres.size());
+        for (String genre : genres) {
+            Integer index = (genre == null) ? Integer.valueOf(-1) : named.get(genre);
+            if (index != null) {
+                out.writeInt(index);
+            } else {
+                out.writeInt(named.size());
+                named.put(genre, named.size());
+                writeString(out, genre);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IOException("String of " + bytes.length + " bytes is too long for a movie snapshot");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    // Decodes Movies from the mapped file one at a time, as restoreMovies asks for them
+    private static final class Reader implements Iterator<Movie> {
+        private final ByteBuffer buffer;
+        private final int format;
+        // Format 2: the genre of each bit; otherwise the genres named so far, by index
+        private final List<String> genres = new ArrayList<String>();
+        private long read;
+
+        Reader(ByteBuffer buffer, int format) {
+            this.buffer = buffer;
+            this.format = format;
+            if (format == MASK_FORMAT) {
+                int genreCount = Short.toUnsignedInt(buffer.getShort());
+                for (int i = 0; i < genreCount; i++) {
+                    genres.add(readString());
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (buffer.getLong(buffer.position()) != 0) {
+                return true;
+            }
+            long count = buffer.getLong(buffer.position() + 8);
+            if (count != read) {
+                throw new IllegalStateException("Movie snapshot holds " + read + " movies but records " + count);
+            }
+            return false;
+        }
+
+        @Override
+        public Movie next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Movie.MovieBuilder movie = Movie.builder().id(buffer.getLong()).version(buffer.getLong()).title(readString());
+            read++;
+            if (format == LEGACY_FORMAT) {
+                movie.releaseYear(readString());
+                List<String> legacyGenres = new ArrayList<String>();
+                for (int i = Short.toUnsignedInt(buffer.getShort()); i > 0; i--) {
+                    legacyGenres.add(readString());
+                }
+                return movie.genres(legacyGenres).build();
+            }
+            movie.releaseYearNumber(buffer.getShort());
+            if (format == MASK_FORMAT) {
+                return movie.genres(maskGenres(buffer.getLong())).build();
+            }
+            movie.releaseYearText(readString());
+            List<String> movieGenres = new ArrayList<String>();
+            for (int i = Short.toUnsignedInt(buffer.getShort()); i > 0; i--) {
+                int index = buffer.getInt();
+                if (index == genres.size()) {
+                    genres.add(readString());
+                } else if (index < -1 || index > genres.size()) {
+                    throw new IllegalStateException("Movie snapshot names genre " + index + " out of order");
+                }
+                movieGenres.add((index < 0) ? null : genres.get(index));
+            }
+            return movie.genres(movieGenres).build();
+        }
+
+        private List<String> maskGenres(long mask) {
+            List<String> maskGenres = new ArrayList<String>(Long.bitCount(mask));
+            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                int bit = Long.numberOfTrailingZeros(rest);
+                if (bit >= genres.size() || genres.get(bit) == null) {
+                    throw new IllegalStateException("Genre bit " + bit + " is not in the snapshot's dictionary");
+                }
+                maskGenres.add(genres.get(bit));
+            }
+            maskGenres.sort(null);
+            return maskGenres;
+        }
+
+        private String readString() {
+            int length = buffer.getShort();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
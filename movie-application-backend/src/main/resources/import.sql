@@ -0,0 +1,3 @@
+-- Run by Hibernate after it creates the schema. A Movie's natural key is its title and releaseYear exactly as
+-- given; with nulls not distinct, two Movies without a title, or with a canonical year and so no year text, collide.
+alter table movie add constraint uk_movie_title_release_year unique nulls not distinct (title, release_year, release_year_text);
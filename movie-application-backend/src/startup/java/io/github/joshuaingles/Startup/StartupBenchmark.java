@@ -0,0 +1,174 @@
+package io.github.joshuaingles.Startup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup Benchmark
+ *
+ * Launches the packaged application in a fresh JVM per run and measures the time
+ * from process launch until a request to it first succeeds, in two modes:
+ *
+ * default  java -jar on the fat jar: classpath scanning, bean definitions and
+ *          Hibernate bootstrap at runtime, every class loaded and verified from the jar
+ * aot-cds  the extracted jar with the Spring AOT initializers (-Dspring.aot.enabled)
+ *          and the AppCDS archive from a training run (-XX:SharedArchiveFile)
+ *
+ * The runs alternate between the modes so drift on the machine hits both alike.
+ * Run through the aot profile, which builds the jar, extracts it and creates the
+ * archive first:
+ *
+ * ./mvnw -Paot verify -Dstartup.args="--runs=10"
+ *
+ * --runs=5                 Launches per mode
+ * --path=/api/v1/movies/facets
+ *                          Request that has to answer 2xx
+ * --timeout=120            Seconds a launch may take before the run fails
+ * --jvm-args=              Extra JVM options for both modes, space separated, e.g. -XX:ActiveProcessorCount=1
+ * --label=default          Report directory under target/startup
+ *
+ * The jar, extracted jar and archive are passed by the profile as --jar,
+ * --extracted-jar and --archive. Each launch's output goes to a log next to the
+ * report.
+ */
+public class StartupBenchmark {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+        "runs", "5",
+        "path", "/api/v1/movies/facets",
+        "timeout", "120",
+        "jvm-args", "",
+        "label", "default",
+        "jar", "",
+        "extracted-jar", "",
+        "archive", "");
+
+    private static final long POLL_MILLIS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=") && DEFAULTS.containsKey(arg.substring(2, arg.indexOf('=')))) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown startup benchmark option " + arg);
+            }
+        }
+        for (String required : List.of("jar", "extracted-jar", "archive")) {
+            if (options.get(required).isBlank() || !Files.exists(Path.of(options.get(required)))) {
+                throw new IllegalArgumentException("--" + required + " must name an existing file, got '" + options.get(required) + "'");
+            }
+        }
+
+        List<String> jvmArgs = options.get("jvm-args").isBlank()
+            ? List.of() : Arrays.asList(options.get("jvm-args").strip().split("\\s+"));
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("default", command(jvmArgs, List.of(), options.get("jar")));
+        modes.put("aot-cds", command(jvmArgs, List.of("-XX:SharedArchiveFile=" + options.get("archive"),
+            "-Dspring.aot.enabled=true"), options.get("extracted-jar")));
+
+        Path directory = Path.of("target", "startup", options.get("label"));
+        Files.createDirectories(directory);
+        int runs = Integer.parseInt(options.get("runs"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.get("timeout")));
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+        modes.keySet().forEach(mode -> results.put(mode, new ArrayList<>()));
+        for (int run = 1; run <= runs; run++) {
+            for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+                long millis = launch(mode.getValue(), options.get("path"), timeout,
+                    directory.resolve(mode.getKey() + "-" + run + ".log"));
+                results.get(mode.getKey()).add(millis);
+                System.out.printf("%-8s run %d: %d ms%n", mode.getKey(), run, millis);
+            }
+        }
+
+        StringBuilder report = new StringBuilder();
+        options.entrySet().stream().sorted(Map.Entry.comparingByKey())
+            .forEach(option -> report.append(option.getKey()).append('=').append(option.getValue()).append('\n'));
+        report.append("java=").append(System.getProperty("java.version"))
+            .append(" processors=").append(Runtime.getRuntime().availableProcessors()).append("\n\n");
+        report.append(summary(results));
+        Files.writeString(directory.resolve("summary.txt"), report);
+        System.out.print(summary(results));
+        System.out.printf("Report written to %s%n", directory);
+    }
+
+    private static List<String> command(List<String> jvmArgs, List<String> modeArgs, String jar) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(modeArgs);
+        command.add("-jar");
+        command.add(jar);
+        return command;
+    }
+
+    // Milliseconds from launching the JVM until path first answered 2xx
+    private static long launch(List<String> command, String path, Duration timeout, Path log)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> full = new ArrayList<>(command);
+        full.addAll(List.of("--server.port=" + port, "--spring.main.banner-mode=off"));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .timeout(Duration.ofSeconds(5)).GET().build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(full).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status >= 200 && status < 300) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+            throw new IllegalStateException("No successful response within " + timeout + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String summary(Map<String, List<Long>> results) {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "%-8s %6s %9s %9s %9s%n", "mode", "runs", "min ms", "median ms", "max ms"));
+        for (Map.Entry<String, List<Long>> result : results.entrySet()) {
+            List<Long> millis = result.getValue().stream().sorted().toList();
+            summary.append(String.format(Locale.ROOT, "%-8s %6d %9d %9d %9d%n", result.getKey(), millis.size(),
+                millis.get(0), millis.get(millis.size() / 2), millis.get(millis.size() - 1)));
+        }
+        return summary.toString();
+    }
+}
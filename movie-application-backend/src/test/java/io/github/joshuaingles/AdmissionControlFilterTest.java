@@ -0,0 +1,171 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.github.joshuaingles.Config.AdaptiveLimiter;
+import io.github.joshuaingles.Config.AdmissionControlFilter;
+import io.github.joshuaingles.Config.MovieProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AdmissionControlFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setup() {
+        MovieProperties.Admission config = new MovieProperties.Admission();
+        config.getBulk().setInitialLimit(1);
+        config.getBulk().setMinLimit(1);
+        config.getBulk().setMaxLimit(1);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AdmissionControlFilter(config, meterRegistry);
+    }
+
+    @Test
+    void rejectsBeyondTheLimitWithRetryAfter() throws Exception {
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/movies/bulk"), new MockHttpServletResponse(),
+            (req, res) -> filter.doFilter(new MockHttpServletRequest("DELETE", "/api/v1/movies/bulk"), rejected,
+                (innerReq, innerRes) -> fail("Second bulk request was admitted")));
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("movie.admission.rejected").tag("budget", "bulk").counter().count());
+        assertEquals(0.0, meterRegistry.get("movie.admission.in.flight").tag("budget", "bulk").gauge().value());
+    }
+
+    @Test
+    void budgetsAreSeparate() throws Exception {
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        MockHttpServletResponse changes = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/movies/import"), new MockHttpServletResponse(), (req, res) -> {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies/7"), read, (innerReq, innerRes) -> { });
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies/changes"), changes, (innerReq, innerRes) -> { });
+        });
+
+        assertEquals(200, read.getStatus());
+        assertEquals(200, changes.getStatus());
+        assertEquals(0.0, meterRegistry.get("movie.admission.rejected").tag("budget", "bulk").counter().count());
+        assertEquals(0.0, meterRegistry.get("movie.admission.rejected").tag("budget", "read").counter().count());
+    }
+
+    @Test
+    void readBudgetCoversOnlySingleReadsAndBatchGet() throws Exception {
+        MovieProperties.Admission config = new MovieProperties.Admission();
+        config.getRead().setInitialLimit(1);
+        config.getRead().setMinLimit(1);
+        config.getRead().setMaxLimit(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControlFilter singleRead = new AdmissionControlFilter(config, registry);
+        List<MockHttpServletRequest> others = List.of(new MockHttpServletRequest("POST", "/api/v1/movies"),
+            new MockHttpServletRequest("PATCH", "/api/v1/movies/7"), new MockHttpServletRequest("DELETE", "/api/v1/movies/7"),
+            new MockHttpServletRequest("GET", "/api/v1/movies/search"), new MockHttpServletRequest("GET", "/api/v1/movies/facets"),
+            new MockHttpServletRequest("POST", "/api/v1/movies/facets/reconcile"));
+        List<MockHttpServletResponse> admitted = new ArrayList<>();
+        MockHttpServletResponse get = new MockHttpServletResponse();
+        MockHttpServletResponse batchGet = new MockHttpServletResponse();
+
+        singleRead.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies/7"), new MockHttpServletResponse(), (req, res) -> {
+            for (MockHttpServletRequest other : others) {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                singleRead.doFilter(other, response, (innerReq, innerRes) -> { });
+                admitted.add(response);
+            }
+            singleRead.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies/8"), get, (innerReq, innerRes) -> fail("Second read was admitted"));
+            singleRead.doFilter(new MockHttpServletRequest("POST", "/api/v1/movies/batch-get"), batchGet, (innerReq, innerRes) -> fail("Batch-get was admitted"));
+        });
+
+        assertTrue(admitted.stream().allMatch(response -> response.getStatus() == 200));
+        assertEquals(503, get.getStatus());
+        assertEquals(503, batchGet.getStatus());
+        assertEquals(2.0, registry.get("movie.admission.rejected").tag("budget", "read").counter().count());
+        assertEquals(0.0, registry.get("movie.admission.rejected").tag("budget", "write").counter().count());
+        assertEquals(0.0, registry.get("movie.admission.rejected").tag("budget", "search").counter().count());
+    }
+
+    @Test
+    void exportsAreCappedApartFromLists() throws Exception {
+        MockHttpServletResponse third = new MockHttpServletResponse();
+        MockHttpServletResponse list = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies/export"), new MockHttpServletResponse(), (req, res) ->
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies/export"), new MockHttpServletResponse(), (secondReq, secondRes) -> {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies/export"), third,
+                    (innerReq, innerRes) -> fail("Third export was admitted"));
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/movies"), list, (innerReq, innerRes) -> { });
+            }));
+
+        assertEquals(503, third.getStatus());
+        assertEquals(200, list.getStatus());
+        assertEquals(1.0, meterRegistry.get("movie.admission.rejected").tag("budget", "export").counter().count());
+        assertEquals(0.0, meterRegistry.get("movie.admission.rejected").tag("budget", "list").counter().count());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyClimbsAndRecoversAfter() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 100, 2.0, 0.2);
+
+        runAt(limiter, 20, TimeUnit.MILLISECONDS.toNanos(5), 200);
+        int steady = limiter.getLimit();
+        assertTrue(steady > 20, "limit should grow while latency is flat: " + steady);
+
+        runAt(limiter, steady, TimeUnit.MILLISECONDS.toNanos(100), 50);
+        int congested = limiter.getLimit();
+        assertTrue(congested < steady / 2, "limit should shrink under rising latency: " + congested);
+
+        runAt(limiter, congested, TimeUnit.MILLISECONDS.toNanos(5), 200);
+        assertTrue(limiter.getLimit() > congested, "limit should recover once latency drops: " + limiter.getLimit());
+    }
+
+    @Test
+    void smallLimitShrinksWhenLatencyClimbs() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 8, 2.0, 0.2);
+
+        runAt(limiter, 2, TimeUnit.MILLISECONDS.toNanos(5), 100);
+        assertTrue(limiter.getLimit() >= 2, "limit should hold while latency is flat: " + limiter.getLimit());
+
+        runAt(limiter, 2, TimeUnit.MILLISECONDS.toNanos(100), 50);
+
+        assertEquals(1, limiter.getLimit());
+        assertTrue(limiter.tryAcquire());
+        // The second concurrent request is the one the filter answers with 503
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void idleLimiterDoesNotGrow() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 2, 100, 2.0, 0.2);
+
+        runAt(limiter, 1, TimeUnit.MILLISECONDS.toNanos(5), 500);
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    // Holds concurrency slots and releases one at a time with the given latency
+    private static void runAt(AdaptiveLimiter limiter, int concurrency, long latencyNanos, int requests) {
+        int held = 0;
+        for (int i = 0; i < requests; i++) {
+            while (held < concurrency && limiter.tryAcquire()) {
+                held++;
+            }
+            limiter.release(latencyNanos);
+            held--;
+        }
+        while (held-- > 0) {
+            limiter.releaseWithoutSample();
+        }
+    }
+}
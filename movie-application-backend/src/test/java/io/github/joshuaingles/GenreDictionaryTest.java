@@ -0,0 +1,174 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+
+// Genres are only ever added and outlive each test, so every test interns names of its own
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(GenreDictionary.class)
+public class GenreDictionaryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void intern_keepsOrderDuplicatesAndNulls() {
+        List<String> genres = Arrays.asList("Dict Western", "Dict Comedy", null, "Dict Western");
+
+        Integer[] ids = inTransaction(() -> {
+            genreDictionary.intern(genres);
+            return genreDictionary.ids(genres);
+        });
+
+        assertEquals(4, ids.length);
+        assertEquals(ids[0], ids[3]);
+        assertNotEquals(ids[0], ids[1]);
+        assertNull(ids[2]);
+        assertEquals(genres, genreDictionary.names(ids));
+        assertSame(genreDictionary.names(ids), genreDictionary.names(ids.clone()));
+        assertEquals(1, countRows("Dict Western"));
+    }
+
+    @Test
+    void intern_isIdempotent() {
+        Integer first = inTransaction(() -> {
+            genreDictionary.intern(List.of("Dict Again"));
+            return genreDictionary.idOf("Dict Again");
+        });
+        Integer second = inTransaction(() -> {
+            genreDictionary.intern(List.of("Dict Again"));
+            return genreDictionary.idOf("Dict Again");
+        });
+
+        assertEquals(first, second);
+        assertEquals(1, countRows("Dict Again"));
+    }
+
+    @Test
+    void intern_outsideTransaction_isRejected() {
+        assertThrows(RuntimeException.class, () -> genreDictionary.intern(List.of("Dict No Transaction")));
+        assertNull(genreDictionary.idOf("Dict No Transaction"));
+    }
+
+    @Test
+    void intern_rolledBack_leavesNoGenre() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            genreDictionary.intern(List.of("Dict Rolled Back"));
+            assertNotNull(genreDictionary.idOf("Dict Rolled Back"));
+            status.setRollbackOnly();
+        });
+
+        assertNull(genreDictionary.idOf("Dict Rolled Back"));
+        assertEquals(0, countRows("Dict Rolled Back"));
+        assertThrows(IllegalStateException.class, () -> genreDictionary.ids(List.of("Dict Rolled Back")));
+    }
+
+    @Test
+    void intern_hasNoLimitOnGenres() {
+        List<String> genres = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            genres.add("Dict Many " + i);
+        }
+
+        Integer[] ids = inTransaction(() -> {
+            genreDictionary.intern(genres);
+            return genreDictionary.ids(genres);
+        });
+
+        assertEquals(100, Arrays.stream(ids).distinct().count());
+        assertEquals(genres, genreDictionary.names(ids));
+    }
+
+    @Test
+    void restart_reloadsGenresFromTheTable() {
+        Integer id = inTransaction(() -> {
+            genreDictionary.intern(List.of("Dict Persisted"));
+            return genreDictionary.idOf("Dict Persisted");
+        });
+
+        GenreDictionary reloaded = new GenreDictionary(jdbcTemplate.getDataSource());
+        reloaded.afterSingletonsInstantiated();
+
+        assertEquals(id, reloaded.idOf("Dict Persisted"));
+        assertEquals(List.of("Dict Persisted"), reloaded.names(new Integer[] {id}));
+    }
+
+    @Test
+    void names_unknownId_isRejected() {
+        assertThrows(IllegalStateException.class, () -> genreDictionary.names(new Integer[] {Integer.MAX_VALUE}));
+    }
+
+    @Test
+    void movieJson_keepsStringYearAndGenreList() throws Exception {
+        Movie movie = Movie.builder().id(1L).title("A").releaseYear("1999").genres(List.of("Dict Json")).version(2).build();
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(movie));
+
+        assertEquals("1999", json.get("releaseYear").asText());
+        assertEquals("Dict Json", json.get("genres").get(0).asText());
+        assertFalse(json.has("releaseYearNumber"));
+        assertFalse(json.has("releaseYearText"));
+        Movie read = objectMapper.readValue("{\"title\":\"A\",\"releaseYear\":\" 0999\",\"genres\":[\"B\",null,\"B\"]}", Movie.class);
+        assertEquals(999, read.getReleaseYearNumber());
+        assertEquals(" 0999", read.getReleaseYear());
+        assertEquals(Arrays.asList("B", null, "B"), read.getGenres());
+    }
+
+    @Test
+    void movieJson_absentGenresStayUnset() throws Exception {
+        Movie patch = objectMapper.readValue("{\"title\":\"A\"}", Movie.class);
+
+        assertNull(patch.getGenres());
+        assertNull(patch.getReleaseYear());
+        assertEquals(0, patch.getReleaseYearNumber());
+    }
+
+    @Test
+    void yearOf_readsWhatParseYearAccepts() {
+        assertEquals(0, Movie.parseYear(" "));
+        assertEquals(2025, Movie.parseYear("2025"));
+        assertThrows(IllegalArgumentException.class, () -> Movie.parseYear("0"));
+        assertThrows(IllegalArgumentException.class, () -> Movie.parseYear("10000"));
+        assertEquals(0, Movie.yearOf("-1"));
+        assertEquals(0, Movie.yearOf("MMXXV"));
+        assertEquals(999, Movie.yearOf("0999"));
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    private int countRows(String genre) {
+        return jdbcTemplate.queryForObject("select count(*) from genre where name = ?", Integer.class, genre);
+    }
+}
@@ -4,8 +4,15 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.ArrayList;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -13,11 +20,29 @@ import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Mock;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import io.github.joshuaingles.Controller.MovieController;
+import io.github.joshuaingles.Dto.BulkResult;
+import io.github.joshuaingles.Dto.ImportSummary;
+import io.github.joshuaingles.Dto.MovieBatch;
+import io.github.joshuaingles.Dto.MovieChange;
+import io.github.joshuaingles.Dto.MovieChanges;
+import io.github.joshuaingles.Dto.MovieFacets;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
 import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Service.MovieImportService;
 import io.github.joshuaingles.Service.MovieService;
 
 public class MovieControllerUnitTest {
@@ -25,12 +50,17 @@ public class MovieControllerUnitTest {
     @Mock
     private MovieService movieService;
 
+    @Mock
+    private MovieImportService movieImportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     private MovieController controller;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        controller = new MovieController(movieService);
+        controller = new MovieController(movieService, movieImportService, objectMapper);
     }
 
     @Test
@@ -57,6 +87,37 @@ public class MovieControllerUnitTest {
         verify(movieService, times(1)).createMovie(movie);
     }
 
+    // The JSON contract: bodies go through Jackson as Spring reads and writes them
+    @Test
+    void createMovie_json_comesBackExactlyAsSent() throws Exception {
+        when(movieService.createMovie(any(Movie.class))).thenAnswer(inv -> inv.getArgument(0));
+        List<String> bodies = List.of(
+            "{\"title\":\"A\",\"releaseYear\":\" 0999\",\"genres\":[\"Contract Western\",\"Contract Drama\",\"Contract Western\",null]}",
+            "{\"title\":\"B\",\"releaseYear\":\"1999a\",\"genres\":[]}",
+            "{\"title\":\"C\",\"releaseYear\":\"\",\"genres\":null}",
+            "{\"title\":null,\"releaseYear\":null,\"genres\":[null]}",
+            "{\"title\":\"D\",\"releaseYear\":\"1999\",\"genres\":[\"Contract Drama\"]}");
+
+        for (String body : bodies) {
+            Movie movie = objectMapper.readValue(body, Movie.class);
+            ObjectNode json = objectMapper.valueToTree(controller.createMovie(movie).getBody());
+            json.remove(List.of("id", "version"));
+
+            assertEquals(objectMapper.readTree(body), json, body);
+        }
+    }
+
+    @Test
+    void createMovie_json_yearIsReadForFiltersWhereItHoldsOne() throws Exception {
+        Movie padded = objectMapper.readValue("{\"title\":\"A\",\"releaseYear\":\" 0999 \"}", Movie.class);
+        Movie notAYear = objectMapper.readValue("{\"title\":\"B\",\"releaseYear\":\"10000\"}", Movie.class);
+
+        assertEquals(999, padded.getReleaseYearNumber());
+        assertEquals(" 0999 ", padded.getReleaseYear());
+        assertEquals(0, notAYear.getReleaseYearNumber());
+        assertEquals("10000", notAYear.getReleaseYear());
+    }
+
     @Test
     void createMovies_success_returnsCreated() {
         Movie a = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
@@ -84,12 +145,36 @@ public class MovieControllerUnitTest {
         verify(movieService, times(1)).createMovies(input);
     }
 
+    @Test
+    void importMovies_complete_returns200WithSummary() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        ImportSummary summary = new ImportSummary(2, 1, 0, 5, 600.0, true);
+        when(movieImportService.importMovies(body)).thenReturn(summary);
+
+        ResponseEntity<ImportSummary> resp = controller.importMovies(body);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(summary, resp.getBody());
+    }
+
+    @Test
+    void importMovies_malformed_returns400WithSummary() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        ImportSummary summary = new ImportSummary(2, 0, 1, 5, 600.0, false);
+        when(movieImportService.importMovies(body)).thenReturn(summary);
+
+        ResponseEntity<ImportSummary> resp = controller.importMovies(body);
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+        assertEquals(summary, resp.getBody());
+    }
+
     @Test
     void getMovie_found_returns200() {
         Movie movie = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
         when(movieService.getMovie(1L)).thenReturn(Optional.of(movie));
 
-        ResponseEntity<Movie> resp = controller.getMovie(1L);
+        ResponseEntity<Movie> resp = controller.getMovie(1L, null);
 
         assertEquals(HttpStatus.OK, resp.getStatusCode());
         assertEquals(movie, resp.getBody());
@@ -100,60 +185,285 @@ public class MovieControllerUnitTest {
     void getMovie_notFound_returns404() {
         when(movieService.getMovie(1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<Movie> resp = controller.getMovie(1L);
+        ResponseEntity<Movie> resp = controller.getMovie(1L, null);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertNull(resp.getBody());
         verify(movieService, times(1)).getMovie(1L);
     }
 
+    @Test
+    void getMoviesByIds_returns200WithMissing() {
+        Movie movie = Movie.builder().id(2L).title("A").releaseYear("2025").genres(List.of("Action")).build();
+        MovieBatch batch = new MovieBatch(List.of(movie), List.of(1L));
+        when(movieService.getMoviesByIds(List.of(2L, 1L))).thenReturn(batch);
+
+        ResponseEntity<MovieBatch> resp = controller.getMoviesByIds(List.of(2L, 1L));
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(batch, resp.getBody());
+    }
+
+    @Test
+    void getMoviesByIds_tooManyIds_returns400() {
+        when(movieService.getMoviesByIds(anyList())).thenThrow(new IllegalArgumentException("at most 1000 ids per request"));
+
+        ResponseEntity<MovieBatch> resp = controller.getMoviesByIds(List.of(1L));
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+    }
+
+    @Test
+    void getMovie_matchingIfNoneMatch_returns304WithoutLoading() {
+        when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(3L));
+
+        ResponseEntity<Movie> resp = controller.getMovie(1L, "W/\"2\", \"3\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, resp.getStatusCode());
+        assertEquals("\"3\"", resp.getHeaders().getETag());
+        verify(movieService, never()).getMovie(any());
+    }
+
+    @Test
+    void getMovie_staleIfNoneMatch_returns200WithETag() {
+        Movie movie = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).version(4L).build();
+        when(movieService.getMovieVersion(1L)).thenReturn(Optional.of(4L));
+        when(movieService.getMovie(1L)).thenReturn(Optional.of(movie));
+
+        ResponseEntity<Movie> resp = controller.getMovie(1L, "\"3\"");
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals("\"4\"", resp.getHeaders().getETag());
+    }
+
     @Test
     void getMovies_withFilters_returns200() {
         Movie movie = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
         List<Movie> result = List.of(movie);
-        when(movieService.getMovies("2025", "Action")).thenReturn(result);
+        when(movieService.getMovies("2025", "Action", MovieSort.ID, null, null)).thenReturn(new MoviePage(result, null));
 
-        ResponseEntity<List<Movie>> resp = controller.getMovies("2025", "Action");
+        ResponseEntity<List<Movie>> resp = controller.getMovies("2025", "Action", null, null, null, null);
 
         assertEquals(HttpStatus.OK, resp.getStatusCode());
         assertEquals(result, resp.getBody());
-        verify(movieService, times(1)).getMovies("2025", "Action");
+        assertNull(resp.getHeaders().getFirst(MovieController.NEXT_CURSOR_HEADER));
+        verify(movieService, times(1)).getMovies("2025", "Action", MovieSort.ID, null, null);
+    }
+
+    @Test
+    void getMovies_morePages_returnsNextCursorHeader() {
+        Movie movie = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
+        when(movieService.getMovies(null, null, MovieSort.TITLE, "abc", 1)).thenReturn(new MoviePage(List.of(movie), "next"));
+
+        ResponseEntity<List<Movie>> resp = controller.getMovies(null, null, "title", "abc", 1, null);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals("next", resp.getHeaders().getFirst(MovieController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void getMovies_matchingIfNoneMatch_returns304WithoutLoading() {
+        when(movieService.getMoviesTag("2025", null)).thenReturn("k1-7");
+
+        ResponseEntity<List<Movie>> resp = controller.getMovies("2025", null, null, null, null, "\"k1-7\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, resp.getStatusCode());
+        verify(movieService, never()).getMovies(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getMovies_invalidSort_returns400() {
+        ResponseEntity<List<Movie>> resp = controller.getMovies(null, null, "rating", null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+        verifyNoInteractions(movieService);
+    }
+
+    @Test
+    void getMovies_invalidCursor_returns400() {
+        when(movieService.getMovies(null, null, MovieSort.ID, "bad", null)).thenThrow(new IllegalArgumentException("Malformed cursor"));
+
+        ResponseEntity<List<Movie>> resp = controller.getMovies(null, null, null, "bad", null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
     }
 
     @Test
     void getMovies_empty_returns404() {
-        when(movieService.getMovies(null, null)).thenReturn(new ArrayList<>());
+        when(movieService.getMovies(null, null, MovieSort.ID, null, null)).thenReturn(new MoviePage(new ArrayList<>(), null));
 
-        ResponseEntity<List<Movie>> resp = controller.getMovies(null, null);
+        ResponseEntity<List<Movie>> resp = controller.getMovies(null, null, null, null, null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertNull(resp.getBody());
-        verify(movieService, times(1)).getMovies(null, null);
+        verify(movieService, times(1)).getMovies(null, null, MovieSort.ID, null, null);
+    }
+
+    @Test
+    void getFacets_returns200WithCounts() {
+        MovieFacets facets = new MovieFacets(2, Map.of("1977", 2L), Map.of("Sci-Fi", 2L, "Adventure", 1L));
+        when(movieService.getFacets("1977", null)).thenReturn(facets);
+
+        ResponseEntity<MovieFacets> resp = controller.getFacets("1977", null);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(facets, resp.getBody());
+    }
+
+    @Test
+    void reconcileFacets_returnsUnfilteredCounts() {
+        MovieFacets facets = new MovieFacets(1, Map.of("1977", 1L), Map.of("Sci-Fi", 1L));
+        when(movieService.getFacets(null, null)).thenReturn(facets);
+
+        ResponseEntity<MovieFacets> resp = controller.reconcileFacets();
+
+        verify(movieService).reconcileFacets();
+        assertEquals(facets, resp.getBody());
+    }
+
+    @Test
+    void getChanges_returns200WithChanges() {
+        Movie movie = Movie.builder().id(1L).title("Star Wars").releaseYear("1977").genres(List.of("Sci-Fi")).build();
+        MovieChanges changes = new MovieChanges("e", List.of(new MovieChange(6, MovieChange.Type.CREATED, 1L, movie)), 6);
+        when(movieService.awaitChanges("e", 5, null, null)).thenReturn(CompletableFuture.completedFuture(changes));
+
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.getChanges("e", 5, null, null).getResult();
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(changes, resp.getBody());
+    }
+
+    @Test
+    void getChanges_trimmed_returns410WithHead() {
+        MovieChanges head = new MovieChanges("e", List.of(), 500);
+        when(movieService.awaitChanges("e", 5, null, null)).thenReturn(CompletableFuture.completedFuture(null));
+        when(movieService.getChangesHead()).thenReturn(head);
+
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.getChanges("e", 5, null, null).getResult();
+
+        assertEquals(HttpStatus.GONE, resp.getStatusCode());
+        assertEquals(head, resp.getBody());
+    }
+
+    @Test
+    void getChanges_waiting_answersOnceChangesArrive() {
+        CompletableFuture<MovieChanges> pending = new CompletableFuture<>();
+        when(movieService.awaitChanges(null, 5, null, 30)).thenReturn(pending);
+
+        DeferredResult<ResponseEntity<MovieChanges>> result = controller.getChanges(null, 5, null, 30);
+        assertFalse(result.hasResult());
+        pending.complete(new MovieChanges("e", List.of(), 5));
+
+        assertEquals(HttpStatus.OK, ((ResponseEntity<?>) result.getResult()).getStatusCode());
+    }
+
+    @Test
+    void getChanges_invalidLimit_returns400() {
+        when(movieService.awaitChanges(null, 0, 0, null)).thenThrow(new IllegalArgumentException("limit must be positive"));
+
+        ResponseEntity<?> resp = (ResponseEntity<?>) controller.getChanges(null, 0, 0, null).getResult();
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+    }
+
+    @Test
+    void searchMovies_matches_returns200() {
+        Movie movie = Movie.builder().id(1L).title("Star Wars").releaseYear("1977").genres(List.of("Sci-Fi")).build();
+        when(movieService.searchMovies("star", 5)).thenReturn(List.of(movie));
+
+        ResponseEntity<List<Movie>> resp = controller.searchMovies("star", 5);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(List.of(movie), resp.getBody());
+    }
+
+    @Test
+    void searchMovies_blankQuery_returns400() {
+        when(movieService.searchMovies(null, null)).thenThrow(new IllegalArgumentException("query must not be blank"));
+
+        ResponseEntity<List<Movie>> resp = controller.searchMovies(null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+    }
+
+    @Test
+    void exportMovies_writesOneJsonLinePerMovie() throws Exception {
+        Movie a = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
+        Movie b = Movie.builder().id(2L).title("B").releaseYear("2024").genres(List.of("Drama")).build();
+        when(movieService.exportMovies(any())).thenAnswer(inv -> {
+            Consumer<Movie> sink = inv.getArgument(0);
+            sink.accept(a);
+            sink.accept(b);
+            return 2L;
+        });
+
+        ResponseEntity<StreamingResponseBody> resp = controller.exportMovies();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resp.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(MediaType.parseMediaType(MovieController.NDJSON), resp.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[1].startsWith("{\"id\":2,"));
     }
 
     @Test
     void updateMovie_success_returns200() {
         Movie patch = Movie.builder().releaseYear("9999").build();
         Movie updated = Movie.builder().id(1L).title("A").releaseYear("9999").genres(List.of("Action")).build();
-        when(movieService.updateMovie(1L, patch)).thenReturn(updated);
+        when(movieService.updateMovie(1L, patch, null)).thenReturn(updated);
 
-        ResponseEntity<Movie> resp = controller.updateMovie(1L, patch);
+        ResponseEntity<Movie> resp = controller.updateMovie(1L, patch, null);
 
         assertEquals(HttpStatus.OK, resp.getStatusCode());
         assertEquals(updated, resp.getBody());
-        verify(movieService, times(1)).updateMovie(1L, patch);
+        verify(movieService, times(1)).updateMovie(1L, patch, null);
     }
 
     @Test
     void updateMovie_notFound_returns404() {
         Movie patch = Movie.builder().releaseYear("9999").build();
-        when(movieService.updateMovie(1L, patch)).thenReturn(null);
+        when(movieService.updateMovie(1L, patch, null)).thenReturn(null);
 
-        ResponseEntity<Movie> resp = controller.updateMovie(1L, patch);
+        ResponseEntity<Movie> resp = controller.updateMovie(1L, patch, null);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertNull(resp.getBody());
-        verify(movieService, times(1)).updateMovie(1L, patch);
+        verify(movieService, times(1)).updateMovie(1L, patch, null);
+    }
+
+    @Test
+    void updateMovie_ifMatch_passesVersions() {
+        Movie patch = Movie.builder().releaseYear("9999").build();
+        Movie updated = Movie.builder().id(1L).title("A").releaseYear("9999").genres(List.of("Action")).version(3L).build();
+        when(movieService.updateMovie(1L, patch, List.of(2L))).thenReturn(updated);
+
+        ResponseEntity<Movie> resp = controller.updateMovie(1L, patch, "\"2\", W/\"5\", \"x\"");
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals("\"3\"", resp.getHeaders().getETag());
+    }
+
+    @Test
+    void updateMovie_staleIfMatch_returns412() {
+        Movie patch = Movie.builder().releaseYear("9999").build();
+        when(movieService.updateMovie(1L, patch, List.of(2L))).thenThrow(new OptimisticLockingFailureException("Movie 1 is at version 3"));
+
+        ResponseEntity<Movie> resp = controller.updateMovie(1L, patch, "\"2\"");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, resp.getStatusCode());
+    }
+
+    @Test
+    void updateMovie_concurrentUpdate_returns409() {
+        Movie patch = Movie.builder().releaseYear("9999").build();
+        when(movieService.updateMovie(1L, patch, null)).thenThrow(new OptimisticLockingFailureException("Movie 1 was updated"));
+
+        ResponseEntity<Movie> resp = controller.updateMovie(1L, patch, "*");
+
+        assertEquals(HttpStatus.CONFLICT, resp.getStatusCode());
     }
 
     @Test
@@ -164,4 +474,45 @@ public class MovieControllerUnitTest {
         assertEquals(HttpStatus.OK, resp.getStatusCode());
         verify(movieService, times(1)).deleteMovie(1L);
     }
+
+    @Test
+    void updateMovies_returns200WithResult() {
+        List<Movie> patches = List.of(Movie.builder().id(1L).title("B").build(), Movie.builder().id(2L).title("C").build());
+        BulkResult result = new BulkResult(List.of(1L), List.of(2L));
+        when(movieService.updateMovies(patches)).thenReturn(result);
+
+        ResponseEntity<BulkResult> resp = controller.updateMovies(patches);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(result, resp.getBody());
+    }
+
+    @Test
+    void updateMovies_duplicateTitle_returns409() {
+        when(movieService.updateMovies(anyList())).thenThrow(new DataIntegrityViolationException("uk_movie_title_release_year"));
+
+        ResponseEntity<BulkResult> resp = controller.updateMovies(List.of(Movie.builder().id(1L).title("B").build()));
+
+        assertEquals(HttpStatus.CONFLICT, resp.getStatusCode());
+    }
+
+    @Test
+    void updateMovies_missingId_returns400() {
+        when(movieService.updateMovies(anyList())).thenThrow(new IllegalArgumentException("every patch needs an id"));
+
+        ResponseEntity<BulkResult> resp = controller.updateMovies(List.of(Movie.builder().title("B").build()));
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+    }
+
+    @Test
+    void deleteMovies_returns200WithResult() {
+        BulkResult result = new BulkResult(List.of(1L, 3L), List.of());
+        when(movieService.deleteMovies(List.of(1L, 3L))).thenReturn(result);
+
+        ResponseEntity<BulkResult> resp = controller.deleteMovies(List.of(1L, 3L));
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(result, resp.getBody());
+    }
 }
@@ -0,0 +1,135 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.ImportSummary;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Service.MovieImportService;
+import io.github.joshuaingles.Service.MovieService;
+
+public class MovieImportServiceUnitTest {
+
+    @Mock
+    private MovieService movieService;
+
+    private MovieImportService movieImportService;
+
+    private List<List<String>> chunks;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        MovieProperties properties = new MovieProperties();
+        properties.getBulk().setImportChunkSize(2);
+        movieImportService = new MovieImportService(movieService, new ObjectMapper(), properties);
+
+        // Records the titles of every chunk and inserts all but titles starting with "dup"
+        chunks = new ArrayList<>();
+        when(movieService.createMovies(anyList())).thenAnswer(inv -> {
+            List<Movie> chunk = inv.getArgument(0);
+            chunks.add(chunk.stream().map(Movie::getTitle).toList());
+            return chunk.stream().filter(m -> !m.getTitle().startsWith("dup")).toList();
+        });
+    }
+
+    @Test
+    void importMovies_ndjson_commitsInChunks() throws Exception {
+        ImportSummary summary = movieImportService.importMovies(input(
+            "{\"title\":\"A\",\"releaseYear\":\"2001\",\"genres\":[\"Drama\"]}\n"
+            + "{\"title\":\"B\",\"releaseYear\":\"2002\",\"genres\":[\"Drama\"]}\n"
+            + "{\"title\":\"C\",\"releaseYear\":\"2003\",\"genres\":[\"Drama\"]}\n"));
+
+        assertEquals(List.of(List.of("A", "B"), List.of("C")), chunks);
+        assertEquals(3, summary.inserted());
+        assertEquals(0, summary.duplicates());
+        assertEquals(0, summary.failed());
+        assertTrue(summary.complete());
+        assertTrue(summary.moviesPerSecond() > 0);
+    }
+
+    @Test
+    void importMovies_jsonArray_commitsInChunks() throws Exception {
+        ImportSummary summary = movieImportService.importMovies(input(
+            "[{\"title\":\"A\",\"releaseYear\":\"2001\"},{\"title\":\"dup\",\"releaseYear\":\"2002\"},"
+            + "{\"title\":\"C\",\"releaseYear\":\"2003\"}]"));
+
+        assertEquals(List.of(List.of("A", "dup"), List.of("C")), chunks);
+        assertEquals(2, summary.inserted());
+        assertEquals(1, summary.duplicates());
+        assertTrue(summary.complete());
+    }
+
+    @Test
+    void importMovies_unmappableRecord_countedAsFailed() throws Exception {
+        ImportSummary summary = movieImportService.importMovies(input(
+            "{\"title\":\"A\",\"releaseYear\":\"2001\"}\n"
+            + "{\"title\":\"B\",\"genres\":{\"not\":\"a list\"}}\n"
+            + "42\n"
+            + "{\"title\":\"C\",\"releaseYear\":\"2003\"}\n"));
+
+        assertEquals(List.of(List.of("A", "C")), chunks);
+        assertEquals(2, summary.inserted());
+        assertEquals(2, summary.failed());
+        assertTrue(summary.complete());
+    }
+
+    @Test
+    void importMovies_releaseYearNotAYear_keptAsGiven() throws Exception {
+        ImportSummary summary = movieImportService.importMovies(input(
+            "{\"title\":\"A\",\"releaseYear\":\"2001\"}\n"
+            + "{\"title\":\"B\",\"releaseYear\":\"MMII\"}\n"
+            + "{\"title\":\"C\",\"releaseYear\":\"20001\"}\n"));
+
+        assertEquals(List.of(List.of("A", "B"), List.of("C")), chunks);
+        assertEquals(3, summary.inserted());
+        assertEquals(0, summary.failed());
+    }
+
+    @Test
+    void importMovies_malformedJson_stopsAndKeepsParsedRecords() throws Exception {
+        ImportSummary summary = movieImportService.importMovies(input(
+            "{\"title\":\"A\",\"releaseYear\":\"2001\"}\n"
+            + "{\"title\":\"B\",\"releaseYear\":\"2002\"}\n"
+            + "{\"title\":\"C\",\"releaseYear\":\"20\n"));
+
+        assertEquals(List.of(List.of("A", "B")), chunks);
+        assertEquals(2, summary.inserted());
+        assertEquals(1, summary.failed());
+        assertFalse(summary.complete());
+    }
+
+    @Test
+    void importMovies_chunkCommitFails_countsChunkAsFailedAndContinues() throws Exception {
+        when(movieService.createMovies(anyList()))
+            .thenThrow(new DataIntegrityViolationException("boom"))
+            .thenAnswer(inv -> inv.getArgument(0));
+
+        ImportSummary summary = movieImportService.importMovies(input(
+            "{\"title\":\"A\"}\n{\"title\":\"B\"}\n{\"title\":\"C\"}\n"));
+
+        assertEquals(1, summary.inserted());
+        assertEquals(2, summary.failed());
+        verify(movieService, times(2)).createMovies(anyList());
+    }
+
+    private static InputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joshuaingles.Config.CacheConfig;
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Repository.MovieRepository;
+import io.github.joshuaingles.Service.MovieCache;
+import io.github.joshuaingles.Service.MovieChangeLog;
+import io.github.joshuaingles.Service.MovieFacetCounts;
+import io.github.joshuaingles.Service.MovieFilterCache;
+import io.github.joshuaingles.Service.MovieFinder;
+import io.github.joshuaingles.Service.MovieIndex;
+import io.github.joshuaingles.Service.MovieIndexLoader;
+import io.github.joshuaingles.Service.MovieReadCoalescer;
+import io.github.joshuaingles.Service.MovieSearchIndex;
+import io.github.joshuaingles.Service.MovieService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// Index writes apply on commit, so these tests run outside the usual rollback-only transaction
+@DataJpaTest(properties = {
+    "movies.index.enabled=true",
+    "movies.filter-cache.enabled=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MovieService.class, MovieCache.class, MovieFilterCache.class, MovieIndex.class, MovieSearchIndex.class, MovieFinder.class, MovieFacetCounts.class, MovieChangeLog.class, MovieReadCoalescer.class, SimpleMeterRegistry.class, MovieIndexLoader.class, CacheConfig.class, GenreDictionary.class})
+@EnableConfigurationProperties(MovieProperties.class)
+public class MovieIndexTest {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private MovieIndex movieIndex;
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private MovieIndexLoader movieIndexLoader;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void builtAtStartup_servesWithoutQueries() {
+        movieService.createMovies(List.of(movie("Served", "1971", "Drama")));
+        assertTrue(movieIndex.isServing());
+        statistics.clear();
+
+        List<Movie> result = movieService.getMovies("1971", "Drama");
+        MoviePage page = movieService.getMovies("1971", null, MovieSort.TITLE, null, 10);
+
+        assertEquals(List.of("Served"), result.stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("Served"), page.movies().stream().map(Movie::getTitle).toList());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void pages_matchJpaOrderForEverySortAndFilter() {
+        List<Movie> movies = new ArrayList<>();
+        String[] titles = {"Delta", "alpha", "Bravo", "Charlie", "Bravo", "Echo", "Alpha"};
+        for (int i = 0; i < titles.length; i++) {
+            movies.add(movie(titles[i], (i % 2 == 0) ? "1972" : "1973", (i % 3 == 0) ? "Noir" : "Heist"));
+        }
+        // Same title in both years exercises the id tie-break
+        movieService.createMovies(movies);
+
+        for (MovieSort sort : MovieSort.values()) {
+            assertEquals(jpaTitles("1972", null, sort), walk("1972", null, sort));
+            assertEquals(jpaTitles(null, "Noir", sort), walk(null, "Noir", sort));
+            assertEquals(jpaTitles("1973", "Heist", sort), walk("1973", "Heist", sort));
+        }
+    }
+
+    @Test
+    void pages_walkSortOrderPastNullTitlesAndMissingYears() {
+        List<Movie> movies = new ArrayList<>();
+        String[] titles = {null, "Walk", "", null, "Walk", "walk", "Run"};
+        String[] years = {"1978", "1978", "MMXXV", "1979", "", "1978", "unknown"};
+        for (int i = 0; i < titles.length; i++) {
+            movies.add(movie(titles[i], years[i], "Walked"));
+        }
+        movieService.createMovies(movies);
+        Movie moved = movieService.createMovie(movie("Walk moved", "1980", "Walked"));
+        Movie gone = movieService.createMovie(movie("Walk gone", "1978", "Walked"));
+        movieService.updateMovie(moved.getId(), Movie.builder().title(null).releaseYear("1977").build(), null);
+        movieService.deleteMovie(gone.getId());
+
+        for (MovieSort sort : MovieSort.values()) {
+            assertEquals(jpaTitles(null, null, sort), walk(null, null, sort));
+            assertEquals(jpaTitles(null, "Walked", sort), walk(null, "Walked", sort));
+            assertEquals(jpaTitles("1978", "Walked", sort), walk("1978", "Walked", sort));
+        }
+    }
+
+    @Test
+    void writes_keepIndexInStep() {
+        Movie moved = movieService.createMovie(movie("Moved", "1974", "Noir"));
+        Movie deleted = movieService.createMovie(movie("Deleted", "1974", "Noir"));
+
+        movieService.updateMovie(moved.getId(), Movie.builder().releaseYear("1975").genres(List.of("Heist")).build(), null);
+        movieService.deleteMovie(deleted.getId());
+
+        assertTrue(movieService.getMovies("1974", null).isEmpty());
+        assertTrue(movieService.getMovies(null, "Noir").stream().noneMatch(m -> m.getTitle().equals("Moved")));
+        assertEquals(List.of("Moved"), movieService.getMovies("1975", "Heist").stream().map(Movie::getTitle).toList());
+    }
+
+    @Test
+    void staleWrites_areDropped() {
+        Movie moved = movieService.createMovie(movie("Raced", "1976", "Noir"));
+        Movie deleted = movieService.createMovie(movie("Raced away", "1976", "Noir"));
+        movieService.updateMovie(moved.getId(), Movie.builder().releaseYear("1977").build(), null);
+        movieService.deleteMovie(deleted.getId());
+
+        // As if the commits of the creates were applied after the update and the delete
+        movieIndex.index(List.of(moved, deleted));
+
+        assertTrue(movieService.getMovies("1976", null).isEmpty());
+        assertEquals(List.of("Raced"), movieService.getMovies("1977", null).stream().map(Movie::getTitle).toList());
+    }
+
+    @Test
+    void rebuild_matchesIncrementallyMaintainedIndex() {
+        movieService.createMovies(List.of(movie("Kept", "1976", "Noir"), movie("Also kept", "1976", "Heist")));
+        List<Movie> before = movieService.getMovies(null, null);
+
+        movieIndexLoader.build();
+
+        List<Movie> after = movieService.getMovies(null, null);
+        assertEquals(before.stream().map(Movie::getId).toList(), after.stream().map(Movie::getId).toList());
+        assertEquals(before.stream().map(Movie::getGenres).toList(), after.stream().map(Movie::getGenres).toList());
+    }
+
+    // Walks every page through the service with a small limit to cross several cursors
+    private List<String> walk(String releaseYear, String genre, MovieSort sort) {
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            MoviePage page = movieService.getMovies(releaseYear, genre, sort, cursor, 2);
+            page.movies().forEach(m -> titles.add(m.getTitle() + "#" + m.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return titles;
+    }
+
+    // The JPA path's answer, one unbounded window from the repository
+    private List<String> jpaTitles(String releaseYear, String genre, MovieSort sort) {
+        Window<Movie> window;
+        if (releaseYear != null && genre != null) {
+            window = movieRepository.findByReleaseYearAndGenreId(releaseYear, genreDictionary.idOf(genre), ScrollPosition.keyset(), sort.toSort(), Limit.of(1000));
+        } else if (releaseYear != null) {
+            window = movieRepository.findByReleaseYear(releaseYear, ScrollPosition.keyset(), sort.toSort(), Limit.of(1000));
+        } else if (genre == null) {
+            window = movieRepository.findAllBy(ScrollPosition.keyset(), sort.toSort(), Limit.of(1000));
+        } else {
+            window = movieRepository.findByGenreId(genreDictionary.idOf(genre), ScrollPosition.keyset(), sort.toSort(), Limit.of(1000));
+        }
+        return window.getContent().stream().map(m -> m.getTitle() + "#" + m.getId()).toList();
+    }
+
+    private static Movie movie(String title, String releaseYear, String genre) {
+        return Movie.builder().title(title).releaseYear(releaseYear).genres(List.of(genre)).build();
+    }
+}
@@ -0,0 +1,219 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import io.github.joshuaingles.Config.CacheConfig;
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.MovieBatch;
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Service.MovieCache;
+import io.github.joshuaingles.Service.MovieChangeLog;
+import io.github.joshuaingles.Service.MovieFacetCounts;
+import io.github.joshuaingles.Service.MovieFilterCache;
+import io.github.joshuaingles.Service.MovieFinder;
+import io.github.joshuaingles.Service.MovieIndex;
+import io.github.joshuaingles.Service.MovieReadCoalescer;
+import io.github.joshuaingles.Service.MovieSearchIndex;
+import io.github.joshuaingles.Service.MovieService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "movies.export.clear-interval=7",
+    "movies.batch-get.chunk-size=50"
+})
+@Import({MovieService.class, MovieCache.class, MovieFilterCache.class, MovieIndex.class, MovieSearchIndex.class, MovieFinder.class, MovieFacetCounts.class, MovieChangeLog.class, MovieReadCoalescer.class, SimpleMeterRegistry.class, CacheConfig.class, GenreDictionary.class})
+@EnableConfigurationProperties(MovieProperties.class)
+public class MovieQueryCountTest {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    // Dedupe select, movie insert batch and at most one pooled sequence fetch; genres are a column of the row
+    private static final long STATEMENTS_PER_CHUNK = 3;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Initialise the pooled sequence optimizer so its first-use fetches are not counted
+        movieService.createMovies(movies("warmup", 1));
+    }
+
+    @Test
+    void createMovies_statementCountFlatWithinChunk() {
+        for (int size : new int[] {1, 10, 50}) {
+            long statements = statementsForBulkInsert("size" + size + "-", size);
+
+            assertTrue(statements <= STATEMENTS_PER_CHUNK,
+                "expected at most " + STATEMENTS_PER_CHUNK + " statements for " + size + " movies but was " + statements);
+        }
+    }
+
+    @Test
+    void createMovies_statementCountGrowsPerChunkNotPerMovie() {
+        long statements = statementsForBulkInsert("ten", 500);
+
+        assertTrue(statements <= 10 * STATEMENTS_PER_CHUNK,
+            "expected at most " + 10 * STATEMENTS_PER_CHUNK + " statements for 10 chunks but was " + statements);
+        assertEquals(1500, countRows("ten"));
+    }
+
+    @Test
+    void createMovies_duplicatesStillRejectedInBulk() {
+        movieService.createMovies(movies("dup", 20));
+
+        List<Movie> result = movieService.createMovies(movies("dup", 20));
+
+        assertTrue(result.isEmpty());
+        assertEquals(60, countRows("dup"));
+    }
+
+    @Test
+    void createMovies_secondNullTitleInTheSameYearIsADuplicate() {
+        Movie untitled = movieService.createMovies(List.of(Movie.builder().title(null).releaseYear("2025").build())).get(0);
+
+        List<Movie> result = movieService.createMovies(List.of(
+            Movie.builder().title(null).releaseYear("2025").genres(List.of("Drama")).build(),
+            Movie.builder().title(null).releaseYear("2024").build()));
+
+        assertEquals(List.of("2024"), result.stream().map(Movie::getReleaseYear).toList());
+        assertEquals(List.of(), movieService.getMovie(untitled.getId()).orElseThrow().getGenres());
+    }
+
+    @Test
+    void getMoviesPage_queryCountConstantWhateverPageSize() {
+        movieService.createMovies(movies("page", 150));
+
+        long small = statementsForRead(() -> movieService.getMovies(null, null, MovieSort.ID, null, 10).movies(), 10);
+        long large = statementsForRead(() -> movieService.getMovies(null, null, MovieSort.ID, null, 140).movies(), 140);
+        long filtered = statementsForRead(() -> movieService.getMovies("2025", "Action", MovieSort.TITLE, null, 100).movies(), 100);
+
+        assertEquals(small, large);
+        assertEquals(small, filtered);
+    }
+
+    @Test
+    void getMovies_unpaged_queryCountConstantWhateverResultSize() {
+        movieService.createMovies(movies("few", 5));
+        long few = statementsForRead(() -> movieService.getMovies(null, "Action"), 6);
+        movieService.createMovies(movies("many", 200));
+        long many = statementsForRead(() -> movieService.getMovies(null, "Action"), 206);
+
+        assertEquals(1, few);
+        assertEquals(few, many);
+    }
+
+    @Test
+    void createMovie_insertsWithoutLookup() {
+        statistics.clear();
+
+        assertNotNull(movieService.createMovie(movies("single-insert", 1).get(0)));
+
+        // Genres and the movie row go in on the transaction's connection, outside Hibernate's statistics;
+        // the unique constraint replaces the existence check, so Hibernate prepares nothing
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getMovie_loadsGenresInSameQuery() {
+        Long id = movieService.createMovies(movies("single", 1)).get(0).getId();
+
+        long statements = statementsForRead(() -> List.of(movieService.getMovie(id).orElseThrow()), 1);
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void getMoviesByIds_oneQueryPerChunkInRequestOrder() {
+        List<Long> ids = new ArrayList<>(movieService.createMovies(movies("batch", 120)).stream().map(Movie::getId).toList());
+        Collections.reverse(ids);
+        Long missingId = ids.get(0) + 1_000_000;
+        List<Long> requested = new ArrayList<>(ids);
+        requested.add(1, missingId);
+        requested.add(ids.get(5));
+        entityManager.clear();
+        statistics.clear();
+
+        MovieBatch batch = movieService.getMoviesByIds(requested);
+
+        assertEquals(ids, batch.movies().stream().map(Movie::getId).toList());
+        assertEquals(List.of(missingId), batch.missing());
+        batch.movies().forEach(m -> assertEquals(2, m.getGenres().size()));
+        // 121 distinct ids in chunks of 50
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void exportMovies_queryCountConstantAcrossPersistenceContextClears() {
+        movieService.createMovies(movies("export", 60));
+        entityManager.clear();
+        statistics.clear();
+        List<String> lines = new ArrayList<>();
+
+        long exported = movieService.exportMovies(m -> lines.add(m.getTitle() + m.getGenres()));
+
+        assertEquals(61, exported);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(lines.stream().allMatch(line -> line.endsWith("[Action, Drama]")));
+    }
+
+    // Statements needed to read the movies and touch their genres, as JSON serialization does
+    private long statementsForRead(Supplier<List<Movie>> read, int expectedSize) {
+        entityManager.clear();
+        statistics.clear();
+        List<Movie> result = read.get();
+        result.forEach(m -> assertEquals(2, m.getGenres().size()));
+        assertEquals(expectedSize, result.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsForBulkInsert(String prefix, int count) {
+        List<Movie> input = movies(prefix, count);
+        statistics.clear();
+        List<Movie> result = movieService.createMovies(input);
+        assertEquals(count, result.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Movies plus their genres for the given title prefix
+    private long countRows(String prefix) {
+        List<Movie> movies = movieService.getMovies(null, null).stream()
+            .filter(m -> m.getTitle().startsWith(prefix))
+            .toList();
+        return movies.size() + movies.stream().mapToLong(m -> m.getGenres().size()).sum();
+    }
+
+    private static List<Movie> movies(String prefix, int count) {
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            movies.add(Movie.builder().title(prefix + i).releaseYear("2025").genres(List.of("Action", "Drama")).build());
+        }
+        return movies;
+    }
+}
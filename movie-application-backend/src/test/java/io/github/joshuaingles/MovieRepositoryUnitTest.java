@@ -2,25 +2,44 @@ package io.github.joshuaingles;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Repository.MovieKey;
 import io.github.joshuaingles.Repository.MovieRepository;
 
 @DataJpaTest
+@Import(GenreDictionary.class)
 public class MovieRepositoryUnitTest {
 
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private GenreDictionary genreDictionary;
+
     @Test
     void findByTitleAndReleaseYear_returnsMovie_whenExists() {
         Movie m = Movie.builder().title("A").releaseYear("2025").genres(List.of("Action")).build();
-        movieRepository.save(m);
+        save(m);
 
         Movie found = movieRepository.findByTitleAndReleaseYear("A", "2025");
 
@@ -37,13 +56,13 @@ public class MovieRepositoryUnitTest {
     }
 
     @Test
-    void findByReleaseYearAndGenresContaining_returnsMatchingMovies() {
+    void findByReleaseYearAndGenreId_returnsMatchingMovies() {
         Movie a = Movie.builder().title("A").releaseYear("2025").genres(List.of("Action", "Drama")).build();
         Movie b = Movie.builder().title("B").releaseYear("2025").genres(List.of("Comedy")).build();
-        movieRepository.save(a);
-        movieRepository.save(b);
+        save(a);
+        save(b);
 
-        List<Movie> results = movieRepository.findByReleaseYearAndGenresContaining("2025", "Action");
+        List<Movie> results = movieRepository.findByReleaseYearAndGenreId("2025", genreDictionary.idOf("Action"));
 
         assertNotNull(results);
         assertEquals(1, results.size());
@@ -54,8 +73,8 @@ public class MovieRepositoryUnitTest {
     void findByReleaseYear_returnsMovies_forYear() {
         Movie a = Movie.builder().title("A").releaseYear("2024").genres(List.of("Action")).build();
         Movie b = Movie.builder().title("B").releaseYear("2024").genres(List.of("Drama")).build();
-        movieRepository.save(a);
-        movieRepository.save(b);
+        save(a);
+        save(b);
 
         List<Movie> results = movieRepository.findByReleaseYear("2024");
 
@@ -64,19 +83,192 @@ public class MovieRepositoryUnitTest {
     }
 
     @Test
-    void findByGenresContaining_returnsMovies_withGenre() {
+    void findByGenreId_returnsMovies_withGenre() {
         Movie a = Movie.builder().title("A").releaseYear("2022").genres(List.of("Action", "Thriller")).build();
         Movie b = Movie.builder().title("B").releaseYear("2023").genres(List.of("Action")).build();
         Movie c = Movie.builder().title("C").releaseYear("2023").genres(List.of("Comedy")).build();
-        movieRepository.save(a);
-        movieRepository.save(b);
-        movieRepository.save(c);
+        save(a);
+        save(b);
+        save(c);
 
-        List<Movie> results = movieRepository.findByGenresContaining("Action");
+        List<Movie> results = movieRepository.findByGenreId(genreDictionary.idOf("Action"));
 
         assertNotNull(results);
         assertEquals(2, results.size());
         assertTrue(results.stream().anyMatch(m -> m.getTitle().equals("A")));
         assertTrue(results.stream().anyMatch(m -> m.getTitle().equals("B")));
     }
+
+    @Test
+    void findByTitleIn_findsNullTitlesOnlyWhenAskedFor() {
+        save(Movie.builder().title(null).releaseYear("2019").genres(List.of("Drama")).build());
+        save(Movie.builder().title(null).releaseYear("2020").genres(List.of("Drama")).build());
+        save(Movie.builder().title("A").releaseYear("2020").genres(List.of("Drama")).build());
+
+        assertEquals(Set.of(new MovieKey(null, (short) 2019, null), new MovieKey(null, (short) 2020, null),
+            new MovieKey("A", (short) 2020, null)), Set.copyOf(movieRepository.findByTitleIn(Arrays.asList(null, "A"))));
+        assertEquals(2, movieRepository.findByTitleIn(Collections.singleton(null)).size());
+        assertEquals(List.of(new MovieKey("A", (short) 2020, null)), movieRepository.findByTitleIn(List.of("A")));
+    }
+
+    @Test
+    void insertAll_duplicateInsertedMeanwhile_skipsOnlyThatMovie() {
+        saveAndFlush(Movie.builder().title("Heat").releaseYear("1995").genres(List.of("Crime")).build());
+
+        genreDictionary.intern(List.of("Drama"));
+        List<Movie> inserted = movieRepository.insertAll(List.of(
+            Movie.builder().title("Casino").releaseYear("1995").genres(List.of("Crime")).build(),
+            Movie.builder().title("Heat").releaseYear("1995").genres(List.of("Drama")).build(),
+            Movie.builder().title("Se7en").releaseYear("1995").build()));
+
+        assertEquals(List.of("Casino", "Se7en"), inserted.stream().map(Movie::getTitle).toList());
+        assertTrue(inserted.stream().allMatch(m -> m.getId() != null));
+        assertEquals(List.of("Crime"), movieRepository.findByTitleAndReleaseYear("Heat", "1995").getGenres());
+        assertEquals(List.of(), movieRepository.findByTitleAndReleaseYear("Se7en", "1995").getGenres());
+        assertEquals(3, movieRepository.count());
+    }
+
+    @Test
+    void findAllBy_keyset_walksPagesInIdOrder() {
+        for (int i = 0; i < 5; i++) {
+            save(Movie.builder().title("T" + i).releaseYear("2020").genres(List.of("Drama")).build());
+        }
+
+        Window<Movie> first = movieRepository.findAllBy(ScrollPosition.keyset(), Sort.by("id"), Limit.of(2));
+        Movie last = first.getContent().get(1);
+        Window<Movie> second = movieRepository.findAllBy(
+            ScrollPosition.forward(Map.of("id", last.getId())), Sort.by("id"), Limit.of(2));
+
+        assertEquals(2, first.size());
+        assertTrue(first.hasNext());
+        assertEquals(2, second.size());
+        assertTrue(second.getContent().get(0).getId() > last.getId());
+    }
+
+    @Test
+    void findByReleaseYear_keyset_pagesPastNullAndEmptyTitles() {
+        save(Movie.builder().title("A").releaseYear("2019").genres(List.of("Drama")).build());
+        save(Movie.builder().title(null).releaseYear("2019").genres(List.of("Drama")).build());
+        save(Movie.builder().title("").releaseYear("2019").genres(List.of("Drama")).build());
+        save(Movie.builder().title(null).releaseYear("2019 ").genres(List.of("Drama")).build());
+        Sort sort = Sort.by("title").and(Sort.by("id"));
+
+        List<String> titles = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<Movie> page;
+        do {
+            page = movieRepository.findByReleaseYear("2019", position, sort, Limit.of(1));
+            Movie last = page.getContent().get(0);
+            titles.add(last.getTitle());
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("title", last.getTitle());
+            keys.put("id", last.getId());
+            position = ScrollPosition.forward(keys);
+        } while (page.hasNext());
+
+        assertEquals(Arrays.asList(null, null, "", "A"), titles);
+    }
+
+    @Test
+    void findByReleaseYear_keyset_ordersByTitleThenId() {
+        save(Movie.builder().title("C").releaseYear("2021").genres(List.of("Drama")).build());
+        save(Movie.builder().title("A").releaseYear("2021").genres(List.of("Drama")).build());
+        save(Movie.builder().title("B").releaseYear("2021").genres(List.of("Drama")).build());
+        save(Movie.builder().title("A").releaseYear("1999").genres(List.of("Drama")).build());
+        Sort sort = Sort.by("title").and(Sort.by("id"));
+
+        Window<Movie> first = movieRepository.findByReleaseYear("2021", ScrollPosition.keyset(), sort, Limit.of(2));
+        Movie last = first.getContent().get(1);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("title", last.getTitle());
+        keys.put("id", last.getId());
+        Window<Movie> second = movieRepository.findByReleaseYear("2021", ScrollPosition.forward(keys), sort, Limit.of(2));
+
+        assertEquals(List.of("A", "B"), first.getContent().stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("C"), second.getContent().stream().map(Movie::getTitle).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void findByGenreId_keyset_returnsOnlyMatchingGenre() {
+        save(Movie.builder().title("A").releaseYear("2022").genres(List.of("Action", "Thriller")).build());
+        save(Movie.builder().title("B").releaseYear("2023").genres(List.of("Comedy")).build());
+        save(Movie.builder().title("C").releaseYear("2023").genres(List.of("Action")).build());
+
+        Window<Movie> page = movieRepository.findByGenreId(genreDictionary.idOf("Action"), ScrollPosition.keyset(), Sort.by("id"), Limit.of(10));
+
+        assertEquals(List.of("A", "C"), page.getContent().stream().map(Movie::getTitle).toList());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void findByReleaseYearAndGenreId_keyset_walksMatchingMoviesOnce() {
+        save(Movie.builder().title("A").releaseYear("2024").genres(List.of("Action", "Drama")).build());
+        save(Movie.builder().title("B").releaseYear("2024").genres(List.of("Comedy")).build());
+        save(Movie.builder().title("C").releaseYear("2023").genres(List.of("Action")).build());
+        save(Movie.builder().title("D").releaseYear("2024").genres(List.of("Action")).build());
+
+        Window<Movie> first = movieRepository.findByReleaseYearAndGenreId(
+            "2024", genreDictionary.idOf("Action"), ScrollPosition.keyset(), Sort.by("id"), Limit.of(1));
+        Window<Movie> second = movieRepository.findByReleaseYearAndGenreId(
+            "2024", genreDictionary.idOf("Action"), ScrollPosition.forward(Map.of("id", first.getContent().get(0).getId())), Sort.by("id"), Limit.of(1));
+
+        assertEquals(List.of("A"), first.getContent().stream().map(Movie::getTitle).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of("D"), second.getContent().stream().map(Movie::getTitle).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void save_rejectsDuplicateTitleAndReleaseYear() {
+        saveAndFlush(Movie.builder().title("A").releaseYear("2025").genres(List.of("Action")).build());
+
+        assertThrows(DataIntegrityViolationException.class, () -> saveAndFlush(
+            Movie.builder().title("A").releaseYear("2025").genres(List.of("Drama")).build()));
+    }
+
+    @Test
+    void save_rejectsSecondNullTitleInTheSameYear() {
+        saveAndFlush(Movie.builder().title(null).releaseYear("2025").genres(List.of("Action")).build());
+        saveAndFlush(Movie.builder().title(null).releaseYear("2024").genres(List.of("Action")).build());
+
+        assertThrows(DataIntegrityViolationException.class, () -> saveAndFlush(
+            Movie.builder().title(null).releaseYear("2025").genres(List.of("Drama")).build()));
+    }
+
+    @Test
+    void insertAll_secondNullTitleInTheSameYear_skipsOnlyThatMovie() {
+        saveAndFlush(Movie.builder().title(null).releaseYear("1995").genres(List.of("Crime")).build());
+
+        genreDictionary.intern(List.of("Drama"));
+        List<Movie> inserted = movieRepository.insertAll(List.of(
+            Movie.builder().title(null).releaseYear("1995").genres(List.of("Drama")).build(),
+            Movie.builder().title(null).releaseYear("1996").genres(List.of("Drama")).build()));
+
+        assertEquals(List.of("1996"), inserted.stream().map(Movie::getReleaseYear).toList());
+        assertEquals(2, movieRepository.count());
+    }
+
+    @Test
+    void streamAllBy_streamsEveryMovieInIdOrder() {
+        save(Movie.builder().title("B").releaseYear("2023").genres(List.of("Comedy")).build());
+        save(Movie.builder().title("A").releaseYear("2022").genres(List.of("Action")).build());
+
+        List<String> titles;
+        try (Stream<Movie> movies = movieRepository.streamAllBy()) {
+            titles = movies.map(Movie::getTitle).toList();
+        }
+
+        assertEquals(List.of("B", "A"), titles);
+    }
+
+    private Movie save(Movie movie) {
+        genreDictionary.intern(movie.getGenres());
+        return movieRepository.save(movie);
+    }
+
+    private Movie saveAndFlush(Movie movie) {
+        genreDictionary.intern(movie.getGenres());
+        return movieRepository.saveAndFlush(movie);
+    }
 }
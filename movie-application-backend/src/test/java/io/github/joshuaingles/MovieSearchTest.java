@@ -0,0 +1,109 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joshuaingles.Config.CacheConfig;
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Service.MovieCache;
+import io.github.joshuaingles.Service.MovieChangeLog;
+import io.github.joshuaingles.Service.MovieFacetCounts;
+import io.github.joshuaingles.Service.MovieFilterCache;
+import io.github.joshuaingles.Service.MovieFinder;
+import io.github.joshuaingles.Service.MovieIndex;
+import io.github.joshuaingles.Service.MovieIndexLoader;
+import io.github.joshuaingles.Service.MovieReadCoalescer;
+import io.github.joshuaingles.Service.MovieSearchIndex;
+import io.github.joshuaingles.Service.MovieService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+// Search index writes apply on commit, so these tests run outside the usual rollback-only transaction
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MovieService.class, MovieCache.class, MovieFilterCache.class, MovieIndex.class, MovieSearchIndex.class, MovieFinder.class, MovieFacetCounts.class, MovieChangeLog.class, MovieReadCoalescer.class, SimpleMeterRegistry.class, MovieIndexLoader.class, CacheConfig.class, GenreDictionary.class})
+@EnableConfigurationProperties(MovieProperties.class)
+public class MovieSearchTest {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private MovieSearchIndex movieSearchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void search_ranksTitlePrefixThenWordPrefixThenSubstring() {
+        movieService.createMovies(List.of(movie("Lone Star"), movie("Mustard"), movie("Starship Troopers"),
+            movie("Star Wars"), movie("Star"), movie("Rats")));
+        assertTrue(movieSearchIndex.isServing());
+        statistics.clear();
+
+        assertEquals(List.of("Star", "Star Wars", "Starship Troopers", "Lone Star", "Mustard"), titles("star", null));
+        assertEquals(List.of("Star", "Star Wars"), titles("star", 2));
+        // Only the ranked movies are loaded, in one query
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void search_ignoresCaseAccentsAndPunctuation() {
+        movieService.createMovies(List.of(movie("Amélie"), movie("Spider-Man: Homecoming")));
+
+        assertEquals(List.of("Amélie"), titles("AMELIE", null));
+        assertEquals(List.of("Spider-Man: Homecoming"), titles("spider man homecoming", null));
+        assertEquals(List.of(), titles("?!", null));
+    }
+
+    @Test
+    void shortQueries_matchOnlyTitleAndWordStarts() {
+        movieService.createMovies(List.of(movie("Quixote"), movie("Don Quixotic"), movie("Aqua")));
+
+        assertEquals(List.of("Quixote"), titles("q", null));
+        assertEquals(List.of("Quixote", "Don Quixotic"), titles("qu", null));
+        assertEquals(List.of("Aqua"), titles("qua", null));
+    }
+
+    @Test
+    void writes_keepSearchInStep() {
+        Movie renamed = movieService.createMovie(movie("Zephyr Rising"));
+        Movie deleted = movieService.createMovie(movie("Zephyr Falling"));
+
+        movieService.updateMovie(renamed.getId(), Movie.builder().title("Gale Rising").build(), null);
+        movieService.deleteMovie(deleted.getId());
+
+        assertEquals(List.of(), titles("zephyr", null));
+        assertEquals(List.of("Gale Rising"), titles("gale", null));
+    }
+
+    private List<String> titles(String query, Integer limit) {
+        return movieService.searchMovies(query, limit).stream().map(Movie::getTitle).toList();
+    }
+
+    private static Movie movie(String title) {
+        return Movie.builder().title(title).releaseYear("1980").genres(List.of("Drama")).build();
+    }
+}
@@ -0,0 +1,565 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.github.joshuaingles.Config.CacheConfig;
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.BulkResult;
+import io.github.joshuaingles.Dto.MovieChange;
+import io.github.joshuaingles.Dto.MovieChanges;
+import io.github.joshuaingles.Dto.MovieFacets;
+import io.github.joshuaingles.Dto.MovieBatch;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Service.MovieCache;
+import io.github.joshuaingles.Service.MovieChangeLog;
+import io.github.joshuaingles.Service.MovieFacetCounts;
+import io.github.joshuaingles.Service.MovieFilterCache;
+import io.github.joshuaingles.Service.MovieFinder;
+import io.github.joshuaingles.Service.MovieIndex;
+import io.github.joshuaingles.Service.MovieReadCoalescer;
+import io.github.joshuaingles.Service.MovieSearchIndex;
+import io.github.joshuaingles.Service.MovieService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+// Cache evictions wait for commit, so these tests run outside the usual rollback-only transaction
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MovieService.class, MovieCache.class, MovieFilterCache.class, MovieIndex.class, MovieSearchIndex.class, MovieFinder.class, MovieFacetCounts.class, MovieChangeLog.class, MovieReadCoalescer.class, SimpleMeterRegistry.class, CacheConfig.class, GenreDictionary.class})
+@EnableConfigurationProperties(MovieProperties.class)
+public class MovieServiceCacheTest {
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Cache cache;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        cache = cacheManager.getCache(CacheConfig.MOVIE_CACHE);
+        cache.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getMovie_secondReadServedFromCache() {
+        Movie saved = movieService.createMovie(movie("Cached"));
+
+        Movie first = movieService.getMovie(saved.getId()).orElseThrow();
+        long statements = statistics.getPrepareStatementCount();
+        Movie second = movieService.getMovie(saved.getId()).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getMovie_cachesMiss() {
+        assertTrue(movieService.getMovie(999_999L).isEmpty());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertTrue(movieService.getMovie(999_999L).isEmpty());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertNotNull(cache.get(999_999L));
+    }
+
+    @Test
+    void getMoviesByIds_cachedIdsNotReadAgain() {
+        Movie cachedMovie = movieService.createMovie(movie("Batch Cached"));
+        Movie uncachedMovie = movieService.createMovie(movie("Batch Uncached"));
+        Movie cached = movieService.getMovie(cachedMovie.getId()).orElseThrow();
+        statistics.clear();
+
+        MovieBatch batch = movieService.getMoviesByIds(List.of(uncachedMovie.getId(), cachedMovie.getId()));
+
+        assertEquals(List.of(uncachedMovie.getId(), cachedMovie.getId()), batch.movies().stream().map(Movie::getId).toList());
+        assertSame(cached, batch.movies().get(1));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void createMovie_evictsCachedMissForNewId() {
+        Movie first = movieService.createMovie(movie("First"));
+        Long nextId = first.getId() + 1;
+        assertTrue(movieService.getMovie(nextId).isEmpty());
+
+        Movie second = movieService.createMovie(movie("Second"));
+
+        assertEquals(nextId, second.getId());
+        assertEquals("Second", movieService.getMovie(nextId).map(Movie::getTitle).orElse(null));
+    }
+
+    @Test
+    void createMovies_evictsCachedMissForNewIds() {
+        Movie first = movieService.createMovie(movie("Bulk first"));
+        Long nextId = first.getId() + 1;
+        assertTrue(movieService.getMovie(nextId).isEmpty());
+
+        List<Movie> created = movieService.createMovies(List.of(movie("Bulk second")));
+
+        assertEquals(nextId, created.get(0).getId());
+        assertEquals("Bulk second", movieService.getMovie(nextId).map(Movie::getTitle).orElse(null));
+    }
+
+    @Test
+    void updateMovie_evictsCachedMovie() {
+        Movie saved = movieService.createMovie(movie("Before"));
+        movieService.getMovie(saved.getId());
+
+        movieService.updateMovie(saved.getId(), Movie.builder().title("After").build(), null);
+
+        assertEquals("After", movieService.getMovie(saved.getId()).map(Movie::getTitle).orElse(null));
+    }
+
+    @Test
+    void deleteMovie_evictsCachedMovie() {
+        Movie saved = movieService.createMovie(movie("Deleted"));
+        assertTrue(movieService.getMovie(saved.getId()).isPresent());
+
+        movieService.deleteMovie(saved.getId());
+
+        assertEquals(Optional.empty(), movieService.getMovie(saved.getId()));
+    }
+
+    @Test
+    void getMovies_repeatedFilterServedFromCache() {
+        movieService.createMovie(movie("Filtered", "1961", "Western"));
+
+        List<Movie> first = movieService.getMovies("1961", "Western");
+        long statements = statistics.getPrepareStatementCount();
+        List<Movie> second = movieService.getMovies(" 1961 ", "Western");
+
+        assertSame(first, second);
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getMovies_equivalentYearsShareOneCacheEntryTagAndFacets() {
+        movieService.createMovie(movie("Early", "999", "Saga"));
+
+        List<Movie> first = movieService.getMovies("0999", "Saga");
+        long statements = statistics.getPrepareStatementCount();
+
+        assertSame(first, movieService.getMovies("999", "Saga"));
+        assertSame(first, movieService.getMovies(" 999", "Saga"));
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(List.of("Early"), first.stream().map(Movie::getTitle).toList());
+        assertEquals(movieService.getMoviesTag("0999", "Saga"), movieService.getMoviesTag(" 999", "Saga"));
+        assertEquals(Map.of("999", 1L), movieService.getFacets("0999", null).releaseYears());
+    }
+
+    @Test
+    void getMovies_yearsThatAreNotYearsShareOneEmptyEntry() {
+        movieService.createMovie(movie("Yearless", null, "Saga"));
+
+        List<Movie> first = movieService.getMovies("1999a", "Saga");
+        long statements = statistics.getPrepareStatementCount();
+
+        assertTrue(first.isEmpty());
+        assertSame(first, movieService.getMovies("0", "Saga"));
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(movieService.getMoviesTag("1999a", null), movieService.getMoviesTag("0", null));
+        assertEquals(0, movieService.getFacets("1999a", null).total());
+    }
+
+    @Test
+    void createMovie_invalidatesOnlyFiltersItMatches() {
+        movieService.createMovie(movie("Seed", "1962", "Noir"));
+        warm("1962", "Noir");
+        warm("1962", null);
+        warm(null, "Noir");
+        warm(null, null);
+        warm("1963", null);
+        warm(null, "Musical");
+
+        movieService.createMovie(movie("Added", "1962", "Noir"));
+
+        assertTrue(reloads("1962", "Noir"));
+        assertTrue(reloads("1962", null));
+        assertTrue(reloads(null, "Noir"));
+        assertTrue(reloads(null, null));
+        assertFalse(reloads("1963", null));
+        assertFalse(reloads(null, "Musical"));
+        assertTrue(movieService.getMovies("1962", "Noir").stream().anyMatch(m -> m.getTitle().equals("Added")));
+    }
+
+    @Test
+    void updateMovie_invalidatesOldAndNewFilters() {
+        Movie saved = movieService.createMovie(movie("Moved", "1964", "Noir"));
+        warm("1964", null);
+        warm("1965", null);
+
+        movieService.updateMovie(saved.getId(), Movie.builder().releaseYear("1965").build(), null);
+
+        assertTrue(movieService.getMovies("1964", null).isEmpty());
+        assertEquals(List.of("Moved"), movieService.getMovies("1965", null).stream().map(Movie::getTitle).toList());
+    }
+
+    @Test
+    void deleteMovie_invalidatesItsFilters() {
+        Movie saved = movieService.createMovie(movie("Gone", "1966", "Noir"));
+        warm("1966", "Noir");
+
+        movieService.deleteMovie(saved.getId());
+
+        assertTrue(movieService.getMovies("1966", "Noir").isEmpty());
+    }
+
+    @Test
+    void updateMovies_appliesPatchesAndInvalidates() {
+        Movie retitled = movieService.createMovie(movie("Bulk Retitled", "1970", "Noir"));
+        Movie regenred = movieService.createMovie(movie("Bulk Regenred", "1970", "Noir"));
+        movieService.getMovie(retitled.getId());
+        warm("1970", "Noir");
+        warm("1970", "Western");
+        Long missingId = regenred.getId() + 1_000_000;
+
+        BulkResult result = movieService.updateMovies(List.of(
+            Movie.builder().id(regenred.getId()).genres(List.of("Western", "Drama")).build(),
+            Movie.builder().id(missingId).title("Nothing").build(),
+            Movie.builder().id(retitled.getId()).title("Bulk Retitled Again").build()));
+
+        assertEquals(List.of(regenred.getId(), retitled.getId()), result.affected());
+        assertEquals(List.of(missingId), result.missing());
+        Movie cached = movieService.getMovie(retitled.getId()).orElseThrow();
+        assertEquals("Bulk Retitled Again", cached.getTitle());
+        assertEquals(retitled.getVersion() + 1, cached.getVersion());
+        assertEquals(List.of("Bulk Retitled Again"), movieService.getMovies("1970", "Noir").stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("Bulk Regenred"), movieService.getMovies("1970", "Western").stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("Western", "Drama"), movieService.getMovie(regenred.getId()).orElseThrow().getGenres());
+    }
+
+    @Test
+    void updateMovies_duplicateTitle_updatesNothing() {
+        Movie first = movieService.createMovie(movie("Bulk Unique A", "1971", "Noir"));
+        Movie second = movieService.createMovie(movie("Bulk Unique B", "1971", "Noir"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> movieService.updateMovies(List.of(
+            Movie.builder().id(first.getId()).title("Bulk Unique C").build(),
+            Movie.builder().id(second.getId()).title("Bulk Unique C").build())));
+
+        assertEquals(List.of("Bulk Unique A", "Bulk Unique B"),
+            movieService.getMovies("1971", "Noir").stream().map(Movie::getTitle).toList());
+    }
+
+    @Test
+    void deleteMovies_removesMovieRows() {
+        Movie kept = movieService.createMovie(movie("Bulk Kept", "1972", "Noir"));
+        Movie gone = movieService.createMovie(movie("Bulk Gone", "1972", "Noir"));
+        Movie alsoGone = movieService.createMovie(movie("Bulk Also Gone", "1972", "Noir"));
+        movieService.getMovie(gone.getId());
+        warm("1972", "Noir");
+        Long missingId = alsoGone.getId() + 1_000_000;
+
+        BulkResult result = movieService.deleteMovies(List.of(alsoGone.getId(), missingId, gone.getId(), gone.getId()));
+
+        assertEquals(List.of(alsoGone.getId(), gone.getId()), result.affected());
+        assertEquals(List.of(missingId), result.missing());
+        assertEquals(Optional.empty(), movieService.getMovie(gone.getId()));
+        assertEquals(List.of(kept.getId()), movieService.getMovies("1972", "Noir").stream().map(Movie::getId).toList());
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            assertEquals(0L, ((Number) entityManager.createNativeQuery("select count(*) from movie where id in (:ids)")
+                .setParameter("ids", List.of(gone.getId(), alsoGone.getId())).getSingleResult()).longValue());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void getMoviesPage_cachedPerPageAndInvalidatedByWrites() {
+        movieService.createMovie(movie("Paged", "1967", "Noir"));
+        MoviePage first = movieService.getMovies("1967", null, MovieSort.TITLE, null, 10);
+
+        assertSame(first, movieService.getMovies("1967", null, MovieSort.TITLE, null, 10));
+        assertNotSame(first, movieService.getMovies("1967", null, MovieSort.ID, null, 10));
+
+        movieService.createMovie(movie("Paged too", "1967", "Drama"));
+
+        assertEquals(2, movieService.getMovies("1967", null, MovieSort.TITLE, null, 10).movies().size());
+    }
+
+    @Test
+    void getMoviesPage_byGenreLoadsGenresOutsideTransaction() {
+        movieService.createMovie(movie("Genre paged", "1968", "Horror"));
+
+        MoviePage page = movieService.getMovies("1968", "Horror", MovieSort.ID, null, 10);
+
+        assertEquals(List.of("Horror"), page.movies().get(0).getGenres());
+        assertEquals(List.of("Horror"), movieService.getMovies(null, "Horror", MovieSort.ID, null, 10).movies().get(0).getGenres());
+    }
+
+    @Test
+    void updateMovie_incrementsVersion() {
+        Movie saved = movieService.createMovie(movie("Versioned"));
+
+        Movie updated = movieService.updateMovie(saved.getId(), Movie.builder().title("Versioned again").build(), null);
+
+        assertEquals(saved.getVersion() + 1, updated.getVersion());
+        assertEquals(Optional.of(updated.getVersion()), movieService.getMovieVersion(saved.getId()));
+    }
+
+    @Test
+    void createMovie_concurrentDuplicates_onlyOneCreated() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Movie>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return movieService.createMovie(movie("Raced", "1973", "Noir"));
+                }));
+            }
+            start.countDown();
+            long created = 0;
+            for (Future<Movie> result : results) {
+                if (result.get() != null) {
+                    created++;
+                }
+            }
+
+            assertEquals(1, created);
+            assertEquals(1, movieService.getMovies("1973", "Noir").stream().filter(m -> m.getTitle().equals("Raced")).count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void updateMovie_touchesOnlyPatchedColumns() {
+        Movie saved = movieService.createMovie(movie("Partial", "1974", "Noir"));
+
+        Movie updated = movieService.updateMovie(saved.getId(), Movie.builder().releaseYear("1975").build(), null);
+
+        Movie reloaded = movieService.getMovie(saved.getId()).orElseThrow();
+        assertEquals("Partial", reloaded.getTitle());
+        assertEquals("1975", reloaded.getReleaseYear());
+        assertEquals(List.of("Noir"), reloaded.getGenres());
+        assertEquals(updated.getVersion(), reloaded.getVersion());
+    }
+
+    @Test
+    void updateMovie_duplicateTitle_throwsAndKeepsMovie() {
+        movieService.createMovie(movie("Taken", "1976", "Noir"));
+        Movie saved = movieService.createMovie(movie("Free", "1976", "Noir"));
+
+        assertThrows(DataIntegrityViolationException.class,
+            () -> movieService.updateMovie(saved.getId(), Movie.builder().title("Taken").build(), null));
+        assertEquals("Free", movieService.getMovie(saved.getId()).map(Movie::getTitle).orElse(null));
+    }
+
+    @Test
+    void updateMovie_missing_returnsNull() {
+        assertNull(movieService.updateMovie(999_998L, Movie.builder().title("Nobody").build(), null));
+    }
+
+    @Test
+    void updateMovie_staleExpectedVersion_throws() {
+        Movie saved = movieService.createMovie(movie("Contended"));
+        movieService.updateMovie(saved.getId(), Movie.builder().title("Contended first").build(), List.of(saved.getVersion()));
+
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> movieService.updateMovie(saved.getId(), Movie.builder().title("Contended second").build(), List.of(saved.getVersion())));
+        assertEquals("Contended first", movieService.getMovie(saved.getId()).map(Movie::getTitle).orElse(null));
+    }
+
+    @Test
+    void getMovieVersion_servedFromCachedMovie() {
+        Movie saved = movieService.createMovie(movie("Version cached"));
+        movieService.getMovie(saved.getId());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(Optional.of(saved.getVersion()), movieService.getMovieVersion(saved.getId()));
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(Optional.empty(), movieService.getMovieVersion(999_998L));
+    }
+
+    @Test
+    void getMoviesTag_changesOnlyWhenMatchingMovieWritten() {
+        String year = movieService.getMoviesTag("1969", null);
+        String other = movieService.getMoviesTag("1970", null);
+
+        movieService.createMovie(movie("Tagged", "1969", "Noir"));
+
+        assertNotEquals(year, movieService.getMoviesTag("1969", null));
+        assertEquals(other, movieService.getMoviesTag("1970", null));
+    }
+
+    @Test
+    void getFacets_followsWritesAndMatchesReconcile() {
+        movieService.reconcileFacets();
+        Movie kept = movieService.createMovie(movie("Faceted", "1977", "Noir"));
+        List<Movie> created = movieService.createMovies(List.of(
+            Movie.builder().title("Faceted Twice").releaseYear("1977").genres(List.of("Noir", "Crime", "Noir")).build(),
+            movie("Faceted Moved", "1977", "Crime")));
+        movieService.updateMovie(created.get(1).getId(), Movie.builder().releaseYear("1978").build(), null);
+        movieService.updateMovies(List.of(Movie.builder().id(kept.getId()).genres(List.of("Western")).build()));
+        movieService.deleteMovie(created.get(0).getId());
+
+        assertEquals(new MovieFacets(1, Map.of("1977", 1L), Map.of("Western", 1L)), movieService.getFacets("1977", null));
+        assertEquals(new MovieFacets(1, Map.of("1978", 1L), Map.of("Crime", 1L)), movieService.getFacets(null, "Crime"));
+        assertEquals(0, movieService.getFacets("1977", "Noir").total());
+        assertFalse(movieService.reconcileFacets());
+    }
+
+    @Test
+    void reconcileFacets_waitsForAWriteThatIsCommitting() throws Exception {
+        movieService.reconcileFacets();
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> write = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                movieService.createMovie(movie("Reconciled Meanwhile", "1981", "Noir"));
+                // Runs after MovieChangeLog has taken the commit order
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        committing.countDown();
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }));
+            assertTrue(committing.await(5, TimeUnit.SECONDS));
+            Future<Boolean> reconcile = executor.submit(movieService::reconcileFacets);
+
+            Thread.sleep(200);
+            assertFalse(reconcile.isDone());
+            release.countDown();
+            write.get(5, TimeUnit.SECONDS);
+
+            assertFalse(reconcile.get(5, TimeUnit.SECONDS));
+            assertEquals(new MovieFacets(1, Map.of("1981", 1L), Map.of("Noir", 1L)), movieService.getFacets("1981", null));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getFacets_rollbackLeavesCountsAlone() {
+        movieService.reconcileFacets();
+        Movie saved = movieService.createMovie(movie("Facet Rollback", "1979", "Noir"));
+        movieService.createMovie(movie("Facet Rollback Taken", "1979", "Noir"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> movieService.updateMovies(
+            List.of(Movie.builder().id(saved.getId()).title("Facet Rollback Taken").genres(List.of("Western")).build())));
+
+        assertEquals(new MovieFacets(2, Map.of("1979", 2L), Map.of("Noir", 2L)), movieService.getFacets("1979", null));
+        assertFalse(movieService.reconcileFacets());
+    }
+
+    @Test
+    void getChanges_followsCommittedWritesOnly() {
+        MovieChanges head = movieService.getChangesHead();
+        Movie created = movieService.createMovie(movie("Changed", "1980", "Noir"));
+        Movie taken = movieService.createMovie(movie("Changed Taken", "1980", "Noir"));
+        Movie updated = movieService.updateMovie(created.getId(), Movie.builder().title("Changed Again").build(), null);
+        assertThrows(DataIntegrityViolationException.class, () -> movieService.updateMovies(
+            List.of(Movie.builder().id(created.getId()).title("Changed Taken").build())));
+        movieService.deleteMovies(List.of(taken.getId()));
+
+        MovieChanges changes = movieService.getChanges(head.epoch(), head.next(), null);
+
+        assertEquals(List.of(MovieChange.Type.CREATED, MovieChange.Type.CREATED, MovieChange.Type.UPDATED, MovieChange.Type.DELETED),
+            changes.changes().stream().map(MovieChange::type).toList());
+        assertEquals(List.of(created.getId(), taken.getId(), created.getId(), taken.getId()),
+            changes.changes().stream().map(MovieChange::id).toList());
+        assertEquals("Changed Again", changes.changes().get(2).movie().getTitle());
+        assertEquals(updated.getVersion(), changes.changes().get(2).movie().getVersion());
+        assertEquals(head.next() + 4, changes.next());
+        assertTrue(movieService.getChanges(head.epoch(), changes.next(), null).changes().isEmpty());
+    }
+
+    @Test
+    void awaitChanges_completesOnNextCommit() throws Exception {
+        MovieChanges head = movieService.getChangesHead();
+        CompletableFuture<MovieChanges> pending = movieService.awaitChanges(head.epoch(), head.next(), null, 10);
+        assertFalse(pending.isDone());
+
+        Movie created = movieService.createMovie(movie("Awaited", "1981", "Noir"));
+
+        MovieChanges changes = pending.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(created.getId()), changes.changes().stream().map(MovieChange::id).toList());
+    }
+
+    @Test
+    void awaitChanges_timesOutEmpty() throws Exception {
+        MovieChanges head = movieService.getChangesHead();
+
+        MovieChanges changes = movieService.awaitChanges(head.epoch(), head.next(), null, 1).get(5, TimeUnit.SECONDS);
+
+        assertTrue(changes.changes().isEmpty());
+        assertEquals(head.next(), changes.next());
+    }
+
+    private void warm(String releaseYear, String genre) {
+        movieService.getMovies(releaseYear, genre);
+    }
+
+    // True when the filter had to go back to the DB rather than the cache
+    private boolean reloads(String releaseYear, String genre) {
+        long before = statistics.getPrepareStatementCount();
+        movieService.getMovies(releaseYear, genre);
+        return statistics.getPrepareStatementCount() > before;
+    }
+
+    private static Movie movie(String title, String releaseYear, String genre) {
+        return Movie.builder().title(title).releaseYear(releaseYear).genres(List.of(genre)).build();
+    }
+
+    private static Movie movie(String title) {
+        return Movie.builder().title(title).releaseYear("2024").genres(List.of("Drama")).build();
+    }
+}
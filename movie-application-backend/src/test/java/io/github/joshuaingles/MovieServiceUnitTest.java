@@ -2,34 +2,84 @@ package io.github.joshuaingles;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.NoSuchElementException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Mock;
-
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Dto.MovieChange;
+import io.github.joshuaingles.Dto.MovieChanges;
+import io.github.joshuaingles.Dto.MoviePage;
+import io.github.joshuaingles.Dto.MovieSort;
 import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Repository.MovieKey;
 import io.github.joshuaingles.Repository.MovieRepository;
+import io.github.joshuaingles.Service.MovieCache;
+import io.github.joshuaingles.Service.MovieChangeLog;
+import io.github.joshuaingles.Service.MovieFacetCounts;
+import io.github.joshuaingles.Service.MovieFilterCache;
+import io.github.joshuaingles.Service.MovieFinder;
+import io.github.joshuaingles.Service.MovieIndex;
+import io.github.joshuaingles.Service.MovieReadCoalescer;
+import io.github.joshuaingles.Service.MovieSearchIndex;
 import io.github.joshuaingles.Service.MovieService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 public class MovieServiceUnitTest {
 
     @Mock
     private MovieRepository movieRepository;
 
+    @Mock
+    private GenreDictionary genreDictionary;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private MovieService movieService;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        movieService = new MovieService(movieRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        movieService = newMovieService(new MovieProperties());
+    }
+
+    private MovieService newMovieService(MovieProperties properties) {
+        MovieReadCoalescer movieReadCoalescer = new MovieReadCoalescer(properties, meterRegistry);
+        return new MovieService(movieRepository, properties, new MovieCache(new ConcurrentMapCacheManager(), movieReadCoalescer),
+            new MovieFilterCache(properties, movieReadCoalescer), new MovieIndex(properties), new MovieSearchIndex(properties),
+            new MovieFinder(movieRepository, genreDictionary), new MovieFacetCounts(), new MovieChangeLog(properties), genreDictionary,
+            transactionManager);
     }
 
     @Test
@@ -37,29 +87,27 @@ public class MovieServiceUnitTest {
         Movie input = Movie.builder().title("A").releaseYear("2025").genres(List.of("Action")).build();
         Movie saved = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
 
-        when(movieRepository.findByTitleAndReleaseYear("A", "2025")).thenReturn(null);
-        when(movieRepository.save(any(Movie.class))).thenReturn(saved);
+        when(movieRepository.insertAll(anyList())).thenReturn(List.of(saved));
 
         Movie result = movieService.createMovie(input);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
-        verify(movieRepository, times(1)).findByTitleAndReleaseYear("A", "2025");
-        verify(movieRepository, times(1)).save(input);
+        verify(genreDictionary, times(1)).intern(Set.of("Action"));
+        verify(movieRepository, times(1)).insertAll(List.of(input));
+        verify(movieRepository, never()).findByTitleAndReleaseYear(any(), any());
     }
 
     @Test
     void createMovie_conflict_returnsNullWhenExists() {
-        Movie existing = Movie.builder().id(5L).title("A").releaseYear("2025").genres(List.of("Action")).build();
         Movie input = Movie.builder().title("A").releaseYear("2025").genres(List.of("Action")).build();
 
-        when(movieRepository.findByTitleAndReleaseYear("A", "2025")).thenReturn(existing);
+        when(movieRepository.insertAll(anyList())).thenReturn(List.of());
 
         Movie result = movieService.createMovie(input);
 
         assertNull(result);
-        verify(movieRepository, times(1)).findByTitleAndReleaseYear("A", "2025");
-        verify(movieRepository, never()).save(any());
+        verify(movieRepository, times(1)).insertAll(List.of(input));
     }
 
     @Test
@@ -69,14 +117,13 @@ public class MovieServiceUnitTest {
         List<Movie> input = Arrays.asList(a, b);
 
         // both do not exist
-        when(movieRepository.findByTitleAndReleaseYear("A", "2025")).thenReturn(null);
-        when(movieRepository.findByTitleAndReleaseYear("B", "2024")).thenReturn(null);
+        when(movieRepository.findByTitleIn(anyCollection())).thenReturn(List.of());
 
         AtomicLong idGen = new AtomicLong(1);
-        when(movieRepository.save(any(Movie.class))).thenAnswer(inv -> {
-            Movie m = inv.getArgument(0);
-            m.setId(idGen.getAndIncrement());
-            return m;
+        when(movieRepository.insertAll(anyList())).thenAnswer(inv -> {
+            List<Movie> movies = inv.getArgument(0);
+            movies.forEach(m -> m.setId(idGen.getAndIncrement()));
+            return movies;
         });
 
         List<Movie> result = movieService.createMovies(input);
@@ -84,8 +131,8 @@ public class MovieServiceUnitTest {
         assertEquals(2, result.size());
         assertEquals(1L, result.get(0).getId());
         assertEquals(2L, result.get(1).getId());
-        verify(movieRepository, times(1)).save(a);
-        verify(movieRepository, times(1)).save(b);
+        verify(movieRepository, times(1)).findByTitleIn(anyCollection());
+        verify(movieRepository, times(1)).insertAll(List.of(a, b));
     }
 
     @Test
@@ -95,21 +142,65 @@ public class MovieServiceUnitTest {
         List<Movie> input = Arrays.asList(a, b);
 
         // a exists, b does not
-        when(movieRepository.findByTitleAndReleaseYear("A", "2025")).thenReturn(new Movie());
-        when(movieRepository.findByTitleAndReleaseYear("B", "2024")).thenReturn(null);
+        when(movieRepository.findByTitleIn(anyCollection())).thenReturn(List.of(new MovieKey("A", (short) 2025, null)));
 
-        when(movieRepository.save(any(Movie.class))).thenAnswer(inv -> {
-            Movie m = inv.getArgument(0);
-            m.setId(99L);
-            return m;
+        when(movieRepository.insertAll(anyList())).thenAnswer(inv -> {
+            List<Movie> movies = inv.getArgument(0);
+            movies.forEach(m -> m.setId(99L));
+            return movies;
         });
 
         List<Movie> result = movieService.createMovies(input);
 
         assertEquals(1, result.size());
         assertEquals(99L, result.get(0).getId());
-        verify(movieRepository, times(0)).save(a);
-        verify(movieRepository, times(1)).save(b);
+        verify(movieRepository, times(1)).insertAll(List.of(b));
+    }
+
+    @Test
+    void createMovies_dropsDuplicatesWithinPayload() {
+        Movie a = Movie.builder().title("A").releaseYear("2025").genres(List.of("Action")).build();
+        Movie copy = Movie.builder().title("A").releaseYear("2025").genres(List.of("Drama")).build();
+        Movie remake = Movie.builder().title("A").releaseYear("2030").genres(List.of("Action")).build();
+
+        when(movieRepository.findByTitleIn(anyCollection())).thenReturn(List.of());
+        insertAllAssigningIds();
+
+        List<Movie> result = movieService.createMovies(Arrays.asList(a, copy, remake));
+
+        assertEquals(List.of(a, remake), result);
+        verify(movieRepository, times(1)).insertAll(List.of(a, remake));
+    }
+
+    @Test
+    void createMovies_allExisting_returnsEmptyWithoutInsert() {
+        Movie a = Movie.builder().title("A").releaseYear("2025").genres(List.of("Action")).build();
+        when(movieRepository.findByTitleIn(anyCollection())).thenReturn(List.of(new MovieKey("A", (short) 2025, null)));
+
+        List<Movie> result = movieService.createMovies(List.of(a));
+
+        assertTrue(result.isEmpty());
+        verify(movieRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void createMovies_queriesOncePerChunk() {
+        MovieProperties properties = new MovieProperties();
+        properties.getBulk().setChunkSize(2);
+        movieService = newMovieService(properties);
+        List<Movie> input = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            input.add(Movie.builder().title("T" + i).releaseYear("2025").genres(List.of("Action")).build());
+        }
+
+        when(movieRepository.findByTitleIn(anyCollection())).thenReturn(List.of());
+        insertAllAssigningIds();
+
+        List<Movie> result = movieService.createMovies(input);
+
+        assertEquals(5, result.size());
+        verify(movieRepository, times(3)).findByTitleIn(anyCollection());
+        verify(movieRepository, times(3)).insertAll(anyList());
     }
 
     @Test
@@ -137,13 +228,14 @@ public class MovieServiceUnitTest {
     @Test
     void getMovies_withBothFilters_callsReleaseYearAndGenreRepoMethod() {
         Movie m = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
-        when(movieRepository.findByReleaseYearAndGenresContaining("2025", "Action")).thenReturn(List.of(m));
+        when(genreDictionary.idOf("Action")).thenReturn(3);
+        when(movieRepository.findByReleaseYearAndGenreId("2025", 3)).thenReturn(List.of(m));
 
         List<Movie> result = movieService.getMovies("2025", "Action");
 
         assertEquals(1, result.size());
         assertEquals(m, result.get(0));
-        verify(movieRepository, times(1)).findByReleaseYearAndGenresContaining("2025", "Action");
+        verify(movieRepository, times(1)).findByReleaseYearAndGenreId("2025", 3);
     }
 
     @Test
@@ -161,13 +253,14 @@ public class MovieServiceUnitTest {
     @Test
     void getMovies_withGenreOnly_callsGenreRepoMethod() {
         Movie m = Movie.builder().id(3L).title("C").releaseYear("2023").genres(List.of("Comedy")).build();
-        when(movieRepository.findByGenresContaining("Comedy")).thenReturn(List.of(m));
+        when(genreDictionary.idOf("Comedy")).thenReturn(4);
+        when(movieRepository.findByGenreId(4)).thenReturn(List.of(m));
 
         List<Movie> result = movieService.getMovies(null, "Comedy");
 
         assertEquals(1, result.size());
         assertEquals(m, result.get(0));
-        verify(movieRepository, times(1)).findByGenresContaining("Comedy");
+        verify(movieRepository, times(1)).findByGenreId(4);
     }
 
     @Test
@@ -182,30 +275,140 @@ public class MovieServiceUnitTest {
         verify(movieRepository, times(1)).findAll();
     }
 
+    @Test
+    void searchMovies_indexNotBuilt_usesTitleSubstringQuery() {
+        Movie m = Movie.builder().id(5L).title("Star Wars").releaseYear("1977").genres(List.of("Sci-Fi")).build();
+        when(movieRepository.findByTitleContainingIgnoreCase(eq("star"), any(Sort.class), eq(Limit.of(10)))).thenReturn(List.of(m));
+
+        List<Movie> result = movieService.searchMovies(" star ", null);
+
+        assertEquals(List.of(m), result);
+    }
+
+    @Test
+    void searchMovies_blankQuery_throws() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.searchMovies("  ", null));
+        assertThrows(IllegalArgumentException.class, () -> movieService.searchMovies("star", 0));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void getMoviesPage_firstPage_usesDefaultLimitAndReturnsCursor() {
+        Movie m = Movie.builder().id(7L).title("G").releaseYear("2020").genres(List.of("Drama")).build();
+        when(movieRepository.findByReleaseYear(eq("2020"), any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+            .thenReturn(Window.from(List.of(m), ScrollPosition::offset, true));
+
+        MoviePage page = movieService.getMovies("2020", null, MovieSort.TITLE, null, null);
+
+        assertEquals(List.of(m), page.movies());
+        assertNotNull(page.nextCursor());
+        verify(movieRepository).findByReleaseYear("2020", ScrollPosition.keyset(), MovieSort.TITLE.toSort(), Limit.of(100));
+    }
+
+    @Test
+    void getMoviesPage_followsCursorFromPreviousPage() {
+        Movie m = Movie.builder().id(7L).title("G").releaseYear("2020").genres(List.of("Drama")).build();
+        when(movieRepository.findAllBy(any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+            .thenReturn(Window.from(List.of(m), ScrollPosition::offset, true))
+            .thenReturn(Window.from(List.of(), ScrollPosition::offset, false));
+
+        String cursor = movieService.getMovies(null, null, MovieSort.TITLE, null, 1).nextCursor();
+        MoviePage next = movieService.getMovies(null, null, MovieSort.TITLE, cursor, 1);
+
+        assertNull(next.nextCursor());
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("title", "G");
+        keys.put("id", 7L);
+        verify(movieRepository).findAllBy(ScrollPosition.forward(keys), MovieSort.TITLE.toSort(), Limit.of(1));
+    }
+
+    @Test
+    void getMoviesPage_limitCappedAtMaxSize() {
+        when(genreDictionary.idOf("Drama")).thenReturn(5);
+        when(movieRepository.findByGenreId(eq(5), any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+            .thenReturn(Window.from(List.of(), ScrollPosition::offset, false));
+
+        movieService.getMovies(null, "Drama", MovieSort.ID, null, 1_000_000);
+
+        verify(movieRepository).findByGenreId(5, ScrollPosition.keyset(), MovieSort.ID.toSort(), Limit.of(1000));
+    }
+
+    @Test
+    void getMoviesPage_cursorFromOtherSort_throwsIllegalArgument() {
+        Movie m = Movie.builder().id(7L).title("G").releaseYear("2020").genres(List.of("Drama")).build();
+        when(movieRepository.findAllBy(any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+            .thenReturn(Window.from(List.of(m), ScrollPosition::offset, true));
+        String cursor = movieService.getMovies(null, null, MovieSort.TITLE, null, 1).nextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMovies(null, null, MovieSort.ID, cursor, 1));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getMovies(null, null, MovieSort.ID, "not-a-cursor", 1));
+    }
+
+    @Test
+    void exportMovies_streamsAllAndClearsPeriodically() {
+        MovieProperties properties = new MovieProperties();
+        properties.getExport().setClearInterval(2);
+        movieService = newMovieService(properties);
+        List<Movie> movies = new ArrayList<>();
+        for (long i = 1; i <= 5; i++) {
+            movies.add(Movie.builder().id(i).title("T" + i).releaseYear("2020").genres(List.of("Drama")).build());
+        }
+        when(movieRepository.streamAllBy()).thenReturn(movies.stream());
+        List<Movie> exported = new ArrayList<>();
+
+        long count = movieService.exportMovies(exported::add);
+
+        assertEquals(5, count);
+        assertEquals(movies, exported);
+        verify(movieRepository, times(2)).clearPersistenceContext();
+    }
+
     @Test
     void updateMovie_success_updatesFieldsAndReturnsSaved() {
-        Movie existing = Movie.builder().id(1L).title("A").releaseYear("2000").genres(List.of("Action")).build();
+        Movie before = Movie.builder().id(1L).title("A").releaseYear("2000").genres(List.of("Action")).version(3).build();
         Movie patch = Movie.builder().releaseYear("9999").build();
-        when(movieRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(movieRepository.save(any(Movie.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(movieRepository.patch(1L, patch, null)).thenReturn(before);
 
-        Movie result = movieService.updateMovie(1L, patch);
+        Movie result = movieService.updateMovie(1L, patch, null);
 
         assertNotNull(result);
         assertEquals("9999", result.getReleaseYear());
         assertEquals("A", result.getTitle()); // unchanged
-        verify(movieRepository, times(1)).findById(1L);
-        verify(movieRepository, times(1)).save(existing);
+        assertEquals(List.of("Action"), result.getGenres());
+        assertEquals(4, result.getVersion());
+        verify(movieRepository, never()).findById(any());
+        verify(movieRepository, never()).save(any());
     }
 
     @Test
-    void updateMovie_notFound_throwsNoSuchElementException() {
+    void updateMovie_genres_writtenByThePatch() {
+        Movie before = Movie.builder().id(1L).title("A").releaseYear("2000").genres(List.of("Action")).build();
+        Movie patch = Movie.builder().genres(List.of("Drama")).build();
+        when(movieRepository.patch(1L, patch, null)).thenReturn(before);
+
+        Movie result = movieService.updateMovie(1L, patch, null);
+
+        assertEquals(List.of("Drama"), result.getGenres());
+        assertEquals("2000", result.getReleaseYear()); // unchanged
+        verify(movieRepository, times(1)).patch(1L, patch, null);
+    }
+
+    @Test
+    void updateMovie_notFound_returnsNull() {
         Movie patch = Movie.builder().releaseYear("9999").build();
-        when(movieRepository.findById(1L)).thenReturn(Optional.empty());
+        when(movieRepository.patch(1L, patch, null)).thenReturn(null);
+        when(movieRepository.findVersionById(1L)).thenReturn(Optional.empty());
 
-        assertThrows(NoSuchElementException.class, () -> movieService.updateMovie(1L, patch));
-        verify(movieRepository, times(1)).findById(1L);
-        verify(movieRepository, never()).save(any());
+        assertNull(movieService.updateMovie(1L, patch, null));
+    }
+
+    @Test
+    void updateMovie_versionMismatch_throws() {
+        Movie patch = Movie.builder().releaseYear("9999").build();
+        when(movieRepository.patch(1L, patch, List.of(2L))).thenReturn(null);
+        when(movieRepository.findVersionById(1L)).thenReturn(Optional.of(5L));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> movieService.updateMovie(1L, patch, List.of(2L)));
     }
 
     @Test
@@ -216,4 +419,206 @@ public class MovieServiceUnitTest {
 
         verify(movieRepository, times(1)).deleteById(1L);
     }
+
+    @Test
+    void getChanges_trimmedPastSince_returnsNull() {
+        MovieProperties properties = new MovieProperties();
+        properties.getChanges().setCapacity(2);
+        movieService = newMovieService(properties);
+        AtomicLong ids = new AtomicLong();
+        when(movieRepository.insertAll(anyList())).thenAnswer(inv -> {
+            List<Movie> movies = inv.getArgument(0);
+            movies.forEach(movie -> movie.setId(ids.incrementAndGet()));
+            return movies;
+        });
+        for (int i = 0; i < 3; i++) {
+            movieService.createMovie(Movie.builder().title("T" + i).releaseYear("2025").genres(List.of("Action")).build());
+        }
+
+        assertNull(movieService.getChanges(null, 0, null));
+        MovieChanges kept = movieService.getChanges(null, 1, null);
+        assertEquals(List.of(2L, 3L), kept.changes().stream().map(MovieChange::sequence).toList());
+        assertEquals(3, kept.next());
+        assertNull(movieService.getChanges(null, 4, null));
+        assertNull(movieService.getChanges("another-epoch", 3, null));
+    }
+
+    @Test
+    void getChanges_invalidArguments_throw() {
+        assertThrows(IllegalArgumentException.class, () -> movieService.getChanges(null, -1, null));
+        assertThrows(IllegalArgumentException.class, () -> movieService.getChanges(null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> movieService.awaitChanges(null, 0, null, -1));
+    }
+
+    @Test
+    void getMovie_concurrentMisses_shareOneLoad() throws Exception {
+        Movie movie = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(movieRepository.findById(1L)).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(movie);
+        });
+        List<Optional<Movie>> results = Collections.synchronizedList(new ArrayList<Optional<Movie>>());
+
+        Thread leader = new Thread(() -> results.add(movieService.getMovie(1L)));
+        leader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        List<Thread> followers = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            Thread follower = new Thread(() -> results.add(movieService.getMovie(1L)));
+            follower.start();
+            followers.add(follower);
+        }
+        awaitWaiting(followers);
+        release.countDown();
+        leader.join();
+        for (Thread follower : followers) {
+            follower.join();
+        }
+
+        verify(movieRepository, times(1)).findById(1L);
+        assertEquals(5, results.size());
+        assertTrue(results.stream().allMatch(result -> result.get() == movie));
+        assertEquals(4, meterRegistry.get("movie.reads.coalesced").tag("read", "getMovie").counter().count());
+        assertEquals(1, meterRegistry.get("movie.reads.loads").tag("read", "getMovie").counter().count());
+    }
+
+    @Test
+    void getMovie_writeCommittedMidFlight_laterReadLoadsAgain() throws Exception {
+        Movie before = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).version(0L).build();
+        Movie after = Movie.builder().id(1L).title("B").releaseYear("2025").genres(List.of("Action")).version(1L).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(movieRepository.findById(1L)).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(before);
+        }).thenReturn(Optional.of(after));
+        when(movieRepository.patch(eq(1L), any(Movie.class), any())).thenReturn(before);
+
+        Thread leader = new Thread(() -> movieService.getMovie(1L));
+        leader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        movieService.updateMovie(1L, Movie.builder().title("B").build(), null);
+        // Does not join the load that started before the update
+        Optional<Movie> read = movieService.getMovie(1L);
+        release.countDown();
+        leader.join();
+
+        assertEquals("B", read.get().getTitle());
+        // The detached load finished last, but what is cached is the read that followed the update
+        assertEquals("B", movieService.getMovie(1L).map(Movie::getTitle).orElse(null));
+        verify(movieRepository, times(2)).findById(1L);
+        assertEquals(0, meterRegistry.get("movie.reads.coalesced").tag("read", "getMovie").counter().count());
+    }
+
+    @Test
+    void getMovie_loadFinishingAfterUpdateCommits_notCached() throws Exception {
+        Movie before = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).version(0L).build();
+        Movie after = Movie.builder().id(1L).title("B").releaseYear("2025").genres(List.of("Action")).version(1L).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(movieRepository.findById(1L)).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(before);
+        }).thenReturn(Optional.of(after));
+        when(movieRepository.patch(eq(1L), any(Movie.class), any())).thenReturn(before);
+
+        Thread reader = new Thread(() -> movieService.getMovie(1L));
+        reader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // The update commits, and evicts, while the read still holds the row it loaded before
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            movieService.updateMovie(1L, Movie.builder().title("B").build(), null);
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        }
+        release.countDown();
+        reader.join();
+
+        assertEquals("B", movieService.getMovie(1L).map(Movie::getTitle).orElse(null));
+        assertEquals("B", movieService.getMovie(1L).map(Movie::getTitle).orElse(null));
+        verify(movieRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getMovie_leaderTooSlow_followerLoadsItself() throws Exception {
+        MovieProperties properties = new MovieProperties();
+        properties.getCoalesce().setMaxWait(Duration.ofMillis(50));
+        movieService = newMovieService(properties);
+        Movie movie = Movie.builder().id(1L).title("A").releaseYear("2025").genres(List.of("Action")).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(movieRepository.findById(1L)).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(movie);
+        }).thenReturn(Optional.of(movie));
+
+        Thread leader = new Thread(() -> movieService.getMovie(1L));
+        leader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Optional<Movie> read = movieService.getMovie(1L);
+        release.countDown();
+        leader.join();
+
+        assertTrue(read.isPresent());
+        verify(movieRepository, times(2)).findById(1L);
+        assertEquals(1, meterRegistry.get("movie.reads.coalesce.timeouts").tag("read", "getMovie").counter().count());
+    }
+
+    @Test
+    void getMovies_concurrentMisses_shareOneLoadUntilAWriteTouchesTheFilter() throws Exception {
+        Movie movie = Movie.builder().id(1L).title("A").releaseYear("1990").genres(List.of("Action")).build();
+        Movie created = Movie.builder().id(2L).title("B").releaseYear("1990").genres(List.of("Drama")).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(movieRepository.findByReleaseYear("1990")).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(movie);
+        }).thenReturn(List.of(movie, created));
+        when(movieRepository.insertAll(anyList())).thenReturn(List.of(created));
+
+        Thread leader = new Thread(() -> movieService.getMovies("1990", null));
+        leader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread follower = new Thread(() -> movieService.getMovies("1990", null));
+        follower.start();
+        awaitWaiting(List.of(follower));
+        movieService.createMovie(Movie.builder().title("B").releaseYear("1990").genres(List.of("Drama")).build());
+        List<Movie> read = movieService.getMovies("1990", null);
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertEquals(2, read.size());
+        verify(movieRepository, times(2)).findByReleaseYear("1990");
+        assertEquals(1, meterRegistry.get("movie.reads.coalesced").tag("read", "getMovies").counter().count());
+    }
+
+    // Followers park on the in-flight load with a timeout
+    private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.TIMED_WAITING) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    // insertAll hands back the inserted Movies with the ids the sequence gave them
+    private void insertAllAssigningIds() {
+        AtomicLong ids = new AtomicLong();
+        when(movieRepository.insertAll(anyList())).thenAnswer(inv -> {
+            List<Movie> movies = inv.getArgument(0);
+            movies.forEach(movie -> movie.setId(ids.incrementAndGet()));
+            return movies;
+        });
+    }
 }
@@ -0,0 +1,226 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.joshuaingles.Config.CacheConfig;
+import io.github.joshuaingles.Config.MovieProperties;
+import io.github.joshuaingles.Entity.Movie;
+import io.github.joshuaingles.Repository.GenreDictionary;
+import io.github.joshuaingles.Repository.MovieRepository;
+import io.github.joshuaingles.Service.MovieCache;
+import io.github.joshuaingles.Service.MovieChangeLog;
+import io.github.joshuaingles.Service.MovieFacetCounts;
+import io.github.joshuaingles.Service.MovieFilterCache;
+import io.github.joshuaingles.Service.MovieFinder;
+import io.github.joshuaingles.Service.MovieIndex;
+import io.github.joshuaingles.Service.MovieReadCoalescer;
+import io.github.joshuaingles.Service.MovieSearchIndex;
+import io.github.joshuaingles.Service.MovieService;
+import io.github.joshuaingles.Service.MovieSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// The restore moves movie_seq, which a rolled back test transaction would not undo
+@DataJpaTest(properties = "movies.snapshot.path=target/test-snapshot/movies.snapshot")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({MovieService.class, MovieCache.class, MovieFilterCache.class, MovieIndex.class, MovieSearchIndex.class, MovieFinder.class, MovieFacetCounts.class, MovieChangeLog.class, MovieReadCoalescer.class, SimpleMeterRegistry.class, MovieSnapshot.class, CacheConfig.class, GenreDictionary.class})
+@EnableConfigurationProperties(MovieProperties.class)
+public class MovieSnapshotTest {
+    private static final Path SNAPSHOT = Path.of("target/test-snapshot/movies.snapshot");
+    private static final Path REJECTED = Path.of("target/test-snapshot/movies.snapshot.rejected");
+
+    @Autowired
+    private MovieService movieService;
+
+    @Autowired
+    private MovieSnapshot movieSnapshot;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @BeforeEach
+    void setup() throws IOException {
+        clearCatalog();
+        Files.deleteIfExists(SNAPSHOT);
+        Files.deleteIfExists(REJECTED);
+    }
+
+    @Test
+    void write_thenLoad_restoresIdsVersionsAndGenres() throws IOException {
+        Movie first = movieService.createMovie(movie("Snapshot A", "1999", Arrays.asList("Drama", "Crime", null, "Drama")));
+        Movie second = movieService.createMovie(movie("Snapshot Ä", " 0999", List.of("Crime")));
+        Movie patched = movieService.updateMovie(first.getId(), Movie.builder().title("Snapshot B").build(), null);
+
+        assertEquals(2, movieSnapshot.write());
+        clearCatalog();
+        assertEquals(2, movieSnapshot.load());
+
+        Movie restored = movieRepository.findById(first.getId()).orElseThrow();
+        assertEquals("Snapshot B", restored.getTitle());
+        assertEquals("1999", restored.getReleaseYear());
+        assertEquals(patched.getVersion(), restored.getVersion());
+        assertEquals(Arrays.asList("Drama", "Crime", null, "Drama"), restored.getGenres());
+        Movie restoredSecond = movieRepository.findById(second.getId()).orElseThrow();
+        assertEquals("Snapshot Ä", restoredSecond.getTitle());
+        assertEquals(" 0999", restoredSecond.getReleaseYear());
+        assertEquals(999, restoredSecond.getReleaseYearNumber());
+        assertEquals(List.of("Crime"), restoredSecond.getGenres());
+        assertTrue(movieService.createMovie(movie("Snapshot C", "1999", List.of("Drama"))).getId() > second.getId());
+    }
+
+    @Test
+    void load_legacyFormat_keepsYearsAndGenresAsWritten() throws IOException {
+        writeLegacySnapshot(out -> {
+            writeLegacyMovie(out, 7, 2, "Legacy A", "1984", Arrays.asList("Noir", "Drama", "Noir", null));
+            writeLegacyMovie(out, 9, 0, "Legacy B", "n/a", List.of());
+            writeLegacyMovie(out, 10, 0, "Legacy B", "0999", List.of("Drama"));
+            writeLegacyMovie(out, 11, 0, "Legacy B", "999", List.of("Drama"));
+        }, 4);
+
+        assertEquals(4, movieSnapshot.load());
+
+        Movie legacy = movieRepository.findById(7L).orElseThrow();
+        assertEquals("1984", legacy.getReleaseYear());
+        assertEquals(2, legacy.getVersion());
+        assertEquals(Arrays.asList("Noir", "Drama", "Noir", null), legacy.getGenres());
+        Movie unknownYear = movieRepository.findById(9L).orElseThrow();
+        assertEquals("n/a", unknownYear.getReleaseYear());
+        assertEquals(0, unknownYear.getReleaseYearNumber());
+        assertEquals("0999", movieRepository.findById(10L).orElseThrow().getReleaseYear());
+        assertEquals("999", movieRepository.findById(11L).orElseThrow().getReleaseYear());
+        assertEquals(1, movieRepository.findByGenreId(genreDictionary.idOf("Noir")).size());
+        assertEquals(2, movieRepository.findByReleaseYear("999").size());
+
+        assertEquals(4, movieSnapshot.write());
+        assertEquals(3, ByteBuffer.wrap(Files.readAllBytes(SNAPSHOT)).getInt(4));
+        clearCatalog();
+        assertEquals(4, movieSnapshot.load());
+        assertEquals("n/a", movieRepository.findById(9L).orElseThrow().getReleaseYear());
+        assertEquals(Arrays.asList("Noir", "Drama", "Noir", null), movieRepository.findById(7L).orElseThrow().getGenres());
+    }
+
+    @Test
+    void load_legacyFormat_collidingMovies_keepsFileAsideAndStartsEmpty() throws IOException {
+        writeLegacySnapshot(out -> {
+            writeLegacyMovie(out, 12, 0, "Legacy Dup", "1999", List.of("Drama"));
+            writeLegacyMovie(out, 13, 0, "Legacy Dup", "1999", List.of("Crime"));
+        }, 2);
+        byte[] bytes = Files.readAllBytes(SNAPSHOT);
+
+        assertEquals(0, movieSnapshot.load());
+
+        assertEquals(0, movieRepository.count());
+        assertFalse(Files.exists(SNAPSHOT));
+        assertArrayEquals(bytes, Files.readAllBytes(REJECTED));
+    }
+
+    @Test
+    void load_corruptFile_startsEmpty() throws IOException {
+        movieService.createMovie(movie("Snapshot Corrupt", "1999", List.of("Drama")));
+        movieSnapshot.write();
+        byte[] bytes = Files.readAllBytes(SNAPSHOT);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(SNAPSHOT, bytes);
+        clearCatalog();
+
+        assertEquals(0, movieSnapshot.load());
+        assertEquals(0, movieRepository.count());
+        assertFalse(Files.exists(SNAPSHOT));
+        assertArrayEquals(bytes, Files.readAllBytes(REJECTED));
+    }
+
+    @Test
+    void load_truncatedFile_startsEmpty() throws IOException {
+        movieService.createMovie(movie("Snapshot Truncated", "1999", List.of("Drama")));
+        movieSnapshot.write();
+        byte[] bytes = Files.readAllBytes(SNAPSHOT);
+        Files.write(SNAPSHOT, Arrays.copyOf(bytes, bytes.length - 10));
+        clearCatalog();
+
+        assertEquals(0, movieSnapshot.load());
+        assertEquals(0, movieRepository.count());
+    }
+
+    @Test
+    void load_missingFile_startsEmpty() {
+        assertEquals(0, movieSnapshot.load());
+    }
+
+    @Test
+    void load_catalogNotEmpty_restoresNothing() throws IOException {
+        movieService.createMovie(movie("Snapshot Kept", "1999", List.of("Drama")));
+        movieSnapshot.write();
+
+        assertEquals(0, movieSnapshot.load());
+        assertEquals(1, movieRepository.count());
+    }
+
+    private void clearCatalog() {
+        movieRepository.removeAll(movieRepository.findAll().stream().map(Movie::getId).toList());
+    }
+
+    private static void writeLegacySnapshot(LegacyMovies movies, long count) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CheckedOutputStream checked = new CheckedOutputStream(bytes, new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+        out.writeInt(0x4D4F5653);
+        out.writeInt(1);
+        movies.write(out);
+        out.writeLong(0);
+        out.writeLong(count);
+        out.flush();
+        out.writeInt((int) checked.getChecksum().getValue());
+        Files.createDirectories(SNAPSHOT.getParent());
+        Files.write(SNAPSHOT, bytes.toByteArray());
+    }
+
+    private interface LegacyMovies {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static void writeLegacyMovie(DataOutputStream out, long id, long version, String title, String releaseYear,
+            List<String> genres) throws IOException {
+        out.writeLong(id);
+        out.writeLong(version);
+        out.writeShort(title.getBytes(StandardCharsets.UTF_8).length);
+        out.write(title.getBytes(StandardCharsets.UTF_8));
+        out.writeShort(releaseYear.getBytes(StandardCharsets.UTF_8).length);
+        out.write(releaseYear.getBytes(StandardCharsets.UTF_8));
+        out.writeShort(genres.size());
+        for (String genre : genres) {
+            if (genre == null) {
+                out.writeShort(-1);
+                continue;
+            }
+            out.writeShort(genre.getBytes(StandardCharsets.UTF_8).length);
+            out.write(genre.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Movie movie(String title, String releaseYear, List<String> genres) {
+        return Movie.builder().title(title).releaseYear(releaseYear).genres(genres).build();
+    }
+}
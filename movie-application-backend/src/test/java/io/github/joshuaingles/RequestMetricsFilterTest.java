@@ -0,0 +1,78 @@
+package io.github.joshuaingles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.github.joshuaingles.Config.RequestMetricsFilter;
+import io.github.joshuaingles.Config.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestMetricsFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestMetricsFilter filter;
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RequestMetricsFilter(meterRegistry);
+        statementCounter = new StatementCounter();
+    }
+
+    @Test
+    void recordsStatementsRowsAndBodySizePerUriTemplate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/movies/7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        byte[] body = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+
+        filter.doFilter(request, response, (req, res) -> {
+            statementCounter.inspect("select m from movie m where m.id=?");
+            statementCounter.inspect("select g from movie_genres g where g.movie_id=?");
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/movies/{id}");
+            req.setAttribute(RequestMetricsFilter.ROWS_ATTRIBUTE, 1);
+            res.getOutputStream().write(body);
+        });
+
+        assertEquals(2.0, summary("movie.http.sql.statements").totalAmount());
+        assertEquals(1.0, summary("movie.http.rows").totalAmount());
+        assertEquals(body.length, summary("movie.http.response.size").totalAmount());
+        assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    void rawJdbcStatementsCountedWithInspectedOnes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v1/movies/bulk");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            statementCounter.inspect("select m from movie m where m.id in (?, ?)");
+            // As MovieRepositoryCustomImpl does for the batch it prepares on the raw connection
+            StatementCounter.count();
+        });
+
+        assertEquals(2.0, summary("movie.http.sql.statements").totalAmount());
+    }
+
+    @Test
+    void statementsOutsideRequestsAreNotCounted() throws Exception {
+        statementCounter.inspect("select 1");
+        MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/api/v1/movies/7");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+
+        assertEquals(0.0, summary("movie.http.sql.statements").totalAmount());
+        assertNull(meterRegistry.find("movie.http.rows").summary());
+    }
+
+    private DistributionSummary summary(String name) {
+        return meterRegistry.get(name).summary();
+    }
+}